@@ -15,6 +15,9 @@
   */
 package com.reandroid.apk;
 
+/**
+ * Implementations must be thread-safe, see ApkBundle.setThreadCount(int)
+ * */
 public interface APKLogger {
     void logMessage(String msg);
     void logError(String msg, Throwable tr);
@@ -18,16 +18,20 @@ package com.reandroid.apk;
 import com.reandroid.archive.ZipEntryMap;
 import com.reandroid.archive.block.ApkSignatureBlock;
 import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.utils.concurrent.WorkerPool;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 public class ApkBundle implements Closeable {
     private final Map<String, ApkModule> mModulesMap;
     private APKLogger apkLogger;
+    private WorkerPool workerPool;
     public ApkBundle(){
         this.mModulesMap=new HashMap<>();
     }
@@ -37,6 +41,7 @@ public class ApkBundle implements Closeable {
         if(moduleList.size()==0){
             throw new FileNotFoundException("Nothing to merge, empty modules");
         }
+        preloadModules(moduleList);
         ApkModule result = new ApkModule(generateMergedModuleName(), new ZipEntryMap());
         result.setAPKLogger(apkLogger);
         result.setLoadDefaultFramework(false);
@@ -126,14 +131,102 @@ public class ApkBundle implements Closeable {
             throw new FileNotFoundException("No '*.apk' files in directory: "+dir);
         }
         logMessage("Found apk files: "+apkList.size());
+        WorkerPool workerPool = getWorkerPool();
+        if(!workerPool.isParallel()){
+            for(File file:apkList){
+                logVerbose("Loading: "+file.getName());
+                addModule(loadModule(file));
+            }
+            return;
+        }
+        List<ApkModule> loadedList = Collections.synchronizedList(new ArrayList<>());
+        List<Callable<ApkModule>> tasks = new ArrayList<>(apkList.size());
         for(File file:apkList){
             logVerbose("Loading: "+file.getName());
-            String name = ApkUtil.toModuleName(file);
-            ApkModule module = ApkModule.loadApkFile(file, name);
-            module.setAPKLogger(apkLogger);
+            tasks.add(() -> {
+                ApkModule module = loadModule(file);
+                loadedList.add(module);
+                preloadModule(module);
+                return module;
+            });
+        }
+        List<ApkModule> results;
+        try {
+            results = workerPool.invokeAll(tasks);
+        } catch (IOException | RuntimeException | Error exception) {
+            synchronized (loadedList){
+                for(ApkModule module : loadedList){
+                    closeQuietly(module);
+                }
+            }
+            throw exception;
+        }
+        // add in directory listing order, same as serial loading
+        for(ApkModule module : results){
             addModule(module);
         }
     }
+    private ApkModule loadModule(File file) throws IOException {
+        String name = ApkUtil.toModuleName(file);
+        ApkModule module = ApkModule.loadApkFile(file, name);
+        module.setAPKLogger(apkLogger);
+        module.setLoadDefaultFramework(false);
+        return module;
+    }
+    private void preloadModules(List<ApkModule> moduleList) throws IOException {
+        WorkerPool workerPool = getWorkerPool();
+        if(!workerPool.isParallel()){
+            return;
+        }
+        List<Callable<Object>> tasks = new ArrayList<>(moduleList.size());
+        for(ApkModule module : moduleList){
+            if(module.getLoadedTableBlock() == null && module.hasTableBlock()){
+                tasks.add(() -> {
+                    preloadModule(module);
+                    return null;
+                });
+            }
+        }
+        workerPool.invokeAll(tasks);
+    }
+    /**
+     * Parses manifest and resource table up front, each module owns its own blocks
+     * so modules can be parsed on separate threads
+     * */
+    private static void preloadModule(ApkModule module){
+        module.getAndroidManifest();
+        module.getTableBlock();
+    }
+    private void closeQuietly(ApkModule module){
+        try {
+            module.close();
+        } catch (IOException exception) {
+            logError("Failed to close: " + module.getModuleName(), exception);
+        }
+    }
+    public WorkerPool getWorkerPool() {
+        WorkerPool workerPool = this.workerPool;
+        if(workerPool == null){
+            workerPool = WorkerPool.serial();
+            this.workerPool = workerPool;
+        }
+        return workerPool;
+    }
+    public void setWorkerPool(WorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+    /**
+     * Number of modules to open and parse concurrently, values <= 0 mean
+     * number of available processors. Modules are always merged in the same order.
+     * While loading in parallel, each module logs to the APKLogger from its own
+     * worker thread, thus the logger must be thread-safe.
+     * */
+    public void setThreadCount(int threadCount) {
+        setWorkerPool(new WorkerPool(threadCount));
+    }
+    public void setExecutor(Executor executor) {
+        setWorkerPool(new WorkerPool(executor));
+    }
     public void addModule(ApkModule apkModule){
         apkModule.setLoadDefaultFramework(false);
         String name = apkModule.getModuleName();
@@ -30,10 +30,10 @@ import com.reandroid.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class ApkModuleDecoder extends ApkModuleCoder{
     private final ApkModule apkModule;
@@ -45,7 +45,7 @@ public abstract class ApkModuleDecoder extends ApkModuleCoder{
     public ApkModuleDecoder(ApkModule apkModule){
         super();
         this.apkModule = apkModule;
-        this.mDecodedPaths = new HashSet<>();
+        this.mDecodedPaths = ConcurrentHashMap.newKeySet();
         setApkLogger(apkModule.getApkLogger());
     }
     public final void decode(File mainDirectory) throws IOException{
@@ -25,21 +25,26 @@ import com.reandroid.arsc.coder.xml.XmlCoder;
 import com.reandroid.utils.io.IOUtil;
 import com.reandroid.arsc.value.*;
 import com.reandroid.json.JSONObject;
+import com.reandroid.utils.concurrent.WorkerPool;
 import com.reandroid.xml.XMLFactory;
 import org.xmlpull.v1.XmlSerializer;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 
 public class ApkModuleXmlDecoder extends ApkModuleDecoder implements Predicate<Entry> {
     private final Map<Integer, Set<ResConfig>> decodedEntries;
     private boolean keepResPath;
+    private WorkerPool workerPool;
 
     public ApkModuleXmlDecoder(ApkModule apkModule){
         super(apkModule);
-        this.decodedEntries = new HashMap<>();
+        this.decodedEntries = new ConcurrentHashMap<>();
     }
     public void setKeepResPath(boolean keepResPath){
         this.keepResPath = keepResPath;
@@ -87,57 +92,50 @@ public class ApkModuleXmlDecoder extends ApkModuleDecoder implements Predicate<E
             logMessage("Res files: " + TableBlock.DIRECTORY_NAME);
         }
         List<ResFile> resFileList = getApkModule().listResFiles();
+        WorkerPool workerPool = getWorkerPool();
+        if(!workerPool.isParallel()){
+            for(ResFile resFile:resFileList){
+                ResFileDecoder decoder = toResFileDecoder(mainDirectory, resFile);
+                if(decoder != null){
+                    decoder.decode();
+                }
+            }
+            return;
+        }
+        // output paths are resolved here, setFilePath updates the shared table string pool
+        List<ResFileDecoder> decoderList = new ArrayList<>(resFileList.size());
         for(ResFile resFile:resFileList){
-            decodeResFile(mainDirectory, resFile);
+            ResFileDecoder decoder = toResFileDecoder(mainDirectory, resFile);
+            if(decoder != null){
+                decoderList.add(decoder);
+            }
+        }
+        // workers only decode, logging is replayed here in serial order
+        List<Exception> errorList = workerPool.invokeAll(decoderList);
+        int size = decoderList.size();
+        for(int i = 0; i < size; i++){
+            ResFileDecoder decoder = decoderList.get(i);
+            logVerbose(decoder.getAlias());
+            decoder.log(errorList.get(i));
         }
     }
-    private void decodeResFile(File mainDirectory, ResFile resFile)
+    private ResFileDecoder toResFileDecoder(File mainDirectory, ResFile resFile)
             throws IOException{
         if(resFile.isBinaryXml()){
             try{
-                decodeResXml(mainDirectory, resFile);
+                return new ResFileDecoder(mainDirectory, resFile, true);
             }catch (Exception ex){
                 logOrThrow("Failed to decode: "
                         + resFile.getFilePath(), ex);
             }
-            return;
+            return null;
         }
         String path = resFile.getFilePath();
         if(path.endsWith(".xml")){
             logMessage("Ignore non bin xml: " + path);
-            return;
-        }
-        decodeResRaw(mainDirectory, resFile);
-    }
-    private void decodeResRaw(File mainDirectory, ResFile resFile)
-            throws IOException {
-        Entry entry = resFile.pickOne();
-        PackageBlock packageBlock = entry.getPackageBlock();
-
-        File file = toDecodeResFile(mainDirectory, resFile, packageBlock);
-        InputSource inputSource = resFile.getInputSource();
-        logVerbose(inputSource.getAlias());
-        inputSource.write(file);
-        if(!keepResPath()){
-            addDecodedEntry(entry);
-        }
-        addDecodedPath(inputSource.getAlias());
-    }
-    private void decodeResXml(File mainDirectory, ResFile resFile)
-            throws IOException{
-        Entry entry = resFile.pickOne();
-        PackageBlock packageBlock = entry.getPackageBlock();
-
-        File file = toDecodeResFile(mainDirectory, resFile, packageBlock);
-        InputSource inputSource = resFile.getInputSource();
-
-        logVerbose(inputSource.getAlias());
-        serializeXml(packageBlock, resFile.getInputSource(), file);
-
-        if(!keepResPath()){
-            addDecodedEntry(entry);
+            return null;
         }
-        addDecodedPath(inputSource.getAlias());
+        return new ResFileDecoder(mainDirectory, resFile, false);
     }
     private File toDecodeResFile(File mainDirectory, ResFile resFile, PackageBlock packageBlock){
         String path;
@@ -241,6 +239,27 @@ public class ApkModuleXmlDecoder extends ApkModuleDecoder implements Predicate<E
         inputSource.write(file);
         addDecodedPath(AndroidManifest.FILE_NAME);
     }
+    public WorkerPool getWorkerPool() {
+        WorkerPool workerPool = this.workerPool;
+        if(workerPool == null){
+            workerPool = WorkerPool.serial();
+            this.workerPool = workerPool;
+        }
+        return workerPool;
+    }
+    public void setWorkerPool(WorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+    /**
+     * Number of res files to decode concurrently, values <= 0 mean
+     * number of available processors
+     * */
+    public void setThreadCount(int threadCount) {
+        setWorkerPool(new WorkerPool(threadCount));
+    }
+    public void setExecutor(Executor executor) {
+        setWorkerPool(new WorkerPool(executor));
+    }
     private void serializeXml(PackageBlock packageBlock, ResXmlDocument document, File outFile)
             throws IOException {
         if(packageBlock != null && document.getPackageBlock() == null){
@@ -262,11 +281,8 @@ public class ApkModuleXmlDecoder extends ApkModuleDecoder implements Predicate<E
             return;
         }
         int resourceId= entry.getResourceId();
-        Set<ResConfig> resConfigSet = decodedEntries.get(resourceId);
-        if(resConfigSet==null){
-            resConfigSet=new HashSet<>();
-            decodedEntries.put(resourceId, resConfigSet);
-        }
+        Set<ResConfig> resConfigSet = decodedEntries.computeIfAbsent(resourceId,
+                key -> ConcurrentHashMap.newKeySet());
         resConfigSet.add(entry.getResConfig());
     }
     private boolean containsDecodedEntry(Entry entry){
@@ -285,4 +301,54 @@ public class ApkModuleXmlDecoder extends ApkModuleDecoder implements Predicate<E
     public boolean test(Entry entry) {
         return containsDecodedEntry(entry);
     }
+
+    private class ResFileDecoder implements Callable<Exception> {
+        private final ResFile resFile;
+        private final Entry entry;
+        private final PackageBlock packageBlock;
+        private final File file;
+        private final boolean binaryXml;
+
+        ResFileDecoder(File mainDirectory, ResFile resFile, boolean binaryXml){
+            this.resFile = resFile;
+            this.entry = resFile.pickOne();
+            this.packageBlock = entry.getPackageBlock();
+            this.file = toDecodeResFile(mainDirectory, resFile, packageBlock);
+            this.binaryXml = binaryXml;
+        }
+        String getAlias(){
+            return resFile.getInputSource().getAlias();
+        }
+        void decode() throws IOException {
+            logVerbose(getAlias());
+            log(call());
+        }
+        void log(Exception decodeError) throws IOException {
+            if(decodeError != null){
+                logOrThrow("Failed to decode: "
+                        + resFile.getFilePath(), decodeError);
+            }
+        }
+        /**
+         * Decodes without logging, returns the binary xml decode error if any
+         * */
+        @Override
+        public Exception call() throws IOException {
+            InputSource inputSource = resFile.getInputSource();
+            if(binaryXml){
+                try{
+                    serializeXml(packageBlock, inputSource, file);
+                }catch (Exception ex){
+                    return ex;
+                }
+            }else {
+                inputSource.write(file);
+            }
+            if(!keepResPath()){
+                addDecodedEntry(entry);
+            }
+            addDecodedPath(inputSource.getAlias());
+            return null;
+        }
+    }
 }
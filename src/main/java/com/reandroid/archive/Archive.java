@@ -24,12 +24,16 @@ import com.reandroid.utils.ObjectsUtil;
 import com.reandroid.utils.collection.ArrayIterator;
 import com.reandroid.utils.collection.CollectionUtil;
 import com.reandroid.utils.collection.ComputeIterator;
+import com.reandroid.utils.concurrent.WorkerPool;
 import com.reandroid.utils.io.FileUtil;
 import com.reandroid.utils.io.IOUtil;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
@@ -39,6 +43,7 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
     private final ArchiveEntry[] entryList;
     private final EndRecord endRecord;
     private final ApkSignatureBlock apkSignatureBlock;
+    private volatile Map<String, ArchiveEntry> entryMap;
 
     public Archive(T zipInput) throws IOException {
         this.zipInput = zipInput;
@@ -49,6 +54,9 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
         lfd.visit(zipInput);
         this.entryList  = lfd.buildArchiveEntryList();
         this.apkSignatureBlock = lfd.getApkSigBlock();
+        for(ArchiveEntry entry : entryList){
+            entry.setArchive(this);
+        }
     }
 
     public ZipEntryMap createZipEntryMap(){
@@ -92,25 +100,54 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
 
     abstract InputSource createInputSource(ArchiveEntry entry);
     public InputSource getEntrySource(String path){
+        ArchiveEntry entry = getEntry(path);
+        if(entry != null){
+            return createInputSource(entry);
+        }
+        return null;
+    }
+    public ArchiveEntry getEntry(String path){
         if(path == null){
             return null;
         }
+        ArchiveEntry entry = getEntryMap().get(path);
+        if(entry != null && !path.equals(entry.getName())){
+            // renamed through its headers, bypassing ArchiveEntry.setName
+            this.entryMap = null;
+            entry = getEntryMap().get(path);
+        }
+        return entry;
+    }
+    void onEntryRenamed(){
+        this.entryMap = null;
+    }
+    private Map<String, ArchiveEntry> getEntryMap(){
+        Map<String, ArchiveEntry> entryMap = this.entryMap;
+        if(entryMap == null){
+            entryMap = buildEntryMap();
+            this.entryMap = entryMap;
+        }
+        return entryMap;
+    }
+    private Map<String, ArchiveEntry> buildEntryMap(){
         ArchiveEntry[] entryList = this.entryList;
         int length = entryList.length;
+        Map<String, ArchiveEntry> map = new HashMap<>(length * 4 / 3 + 1);
         for(int i = 0; i < length; i++){
             ArchiveEntry entry = entryList[i];
             if(entry.isDirectory()){
                 continue;
             }
-            if(path.equals(entry.getName())){
-                return createInputSource(entry);
-            }
+            map.putIfAbsent(entry.getName(), entry);
         }
-        return null;
+        return map;
     }
     public InputStream openRawInputStream(ArchiveEntry archiveEntry) throws IOException {
         return zipInput.getInputStream(archiveEntry.getFileOffset(), archiveEntry.getDataSize());
     }
+    public ByteBuffer getRawByteBuffer(ArchiveEntry archiveEntry) throws IOException {
+        return zipInput.getByteBuffer(archiveEntry.getFileOffset(), archiveEntry.getDataSize());
+    }
     public InputStream openInputStream(ArchiveEntry archiveEntry) throws IOException {
         InputStream rawInputStream = openRawInputStream(archiveEntry);
         if(!archiveEntry.isCompressed()){
@@ -157,6 +194,60 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
         }
         return result;
     }
+    public int extractAll(File dir, int threadCount) throws IOException {
+        WorkerPool workerPool = new WorkerPool(threadCount);
+        try {
+            return extractAll(dir, workerPool);
+        } finally {
+            workerPool.close();
+        }
+    }
+    public int extractAll(File dir, WorkerPool workerPool) throws IOException {
+        return extractAll(dir, null, null, null, workerPool);
+    }
+    public int extractAll(File dir, Predicate<ArchiveEntry> filter, APKLogger logger,
+                          ExtractProgress progress, WorkerPool workerPool) throws IOException {
+        if(!workerPool.isParallel() && progress == null){
+            return extractAll(dir, filter, logger);
+        }
+        List<ArchiveEntry> entryList = CollectionUtil.toList(iterator(filter));
+        List<List<ArchiveEntry>> partitions = partitionBySize(entryList,
+                workerPool.isParallel() ? workerPool.getThreadCount() : 1);
+        ExtractReporter extractReporter = new ExtractReporter(logger, progress);
+        List<Callable<Integer>> tasks = new ArrayList<>(partitions.size());
+        for(List<ArchiveEntry> partition : partitions){
+            tasks.add(() -> new EntryExtractor(dir, extractReporter).extract(partition));
+        }
+        int result = 0;
+        for(Integer count : workerPool.invokeAll(tasks)){
+            result += count;
+        }
+        return result;
+    }
+    // Largest entries first, each one goes to the currently lightest partition
+    private static List<List<ArchiveEntry>> partitionBySize(List<ArchiveEntry> entryList, int count){
+        List<ArchiveEntry> sorted = new ArrayList<>(entryList);
+        sorted.sort((entry1, entry2) -> Long.compare(entry2.getDataSize(), entry1.getDataSize()));
+        if(count > sorted.size()){
+            count = sorted.size();
+        }
+        List<List<ArchiveEntry>> results = new ArrayList<>(count);
+        long[] sizes = new long[count];
+        for(int i = 0; i < count; i++){
+            results.add(new ArrayList<>());
+        }
+        for(ArchiveEntry archiveEntry : sorted){
+            int lightest = 0;
+            for(int i = 1; i < count; i++){
+                if(sizes[i] < sizes[lightest]){
+                    lightest = i;
+                }
+            }
+            results.get(lightest).add(archiveEntry);
+            sizes[lightest] += archiveEntry.getDataSize();
+        }
+        return results;
+    }
     public void extract(File file, ArchiveEntry archiveEntry) throws IOException{
         extract(file, archiveEntry, null);
     }
@@ -180,6 +271,93 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
         FileOutputStream outputStream = new FileOutputStream(file);
         IOUtil.writeAll(openInputStream(archiveEntry), outputStream);
     }
+    private class EntryExtractor {
+        private final File dir;
+        private final ExtractReporter reporter;
+        private final Inflater inflater;
+        private final byte[] inputBuffer;
+        private final byte[] outputBuffer;
+
+        EntryExtractor(File dir, ExtractReporter reporter){
+            this.dir = dir;
+            this.reporter = reporter;
+            this.inflater = new Inflater(true);
+            this.inputBuffer = new byte[1024 * 64];
+            this.outputBuffer = new byte[1024 * 64];
+        }
+        int extract(List<ArchiveEntry> entryList) throws IOException {
+            try {
+                for(ArchiveEntry archiveEntry : entryList){
+                    File file = toFile(dir, archiveEntry);
+                    reporter.onExtract(archiveEntry);
+                    FileUtil.ensureParentDirectory(file);
+                    if(archiveEntry.getMethod() != Archive.STORED){
+                        inflate(file, archiveEntry);
+                    }else {
+                        extractStored(file, archiveEntry);
+                    }
+                }
+            }finally {
+                inflater.end();
+            }
+            return entryList.size();
+        }
+        private void inflate(File file, ArchiveEntry archiveEntry) throws IOException {
+            Inflater inflater = this.inflater;
+            inflater.reset();
+            byte[] inputBuffer = this.inputBuffer;
+            byte[] outputBuffer = this.outputBuffer;
+            InputStream inputStream = openRawInputStream(archiveEntry);
+            OutputStream outputStream = new FileOutputStream(file);
+            try {
+                while (!inflater.finished()){
+                    if(inflater.needsInput()){
+                        int read = inputStream.read(inputBuffer, 0, inputBuffer.length);
+                        if(read < 0){
+                            throw new ArchiveException("Unexpected end of deflate data: "
+                                    + archiveEntry.getName());
+                        }
+                        inflater.setInput(inputBuffer, 0, read);
+                    }
+                    int length = inflater.inflate(outputBuffer, 0, outputBuffer.length);
+                    if(length > 0){
+                        outputStream.write(outputBuffer, 0, length);
+                    }else if(inflater.needsDictionary()){
+                        throw new ArchiveException("Dictionary required: " + archiveEntry.getName());
+                    }
+                }
+            }catch (DataFormatException exception){
+                throw new ArchiveException("Invalid deflate data: "
+                        + archiveEntry.getName() + ", " + exception.getMessage());
+            }finally {
+                inputStream.close();
+                outputStream.close();
+            }
+        }
+    }
+    private static class ExtractReporter {
+        private final APKLogger logger;
+        private final ExtractProgress progress;
+        private long extractedBytes;
+
+        ExtractReporter(APKLogger logger, ExtractProgress progress){
+            this.logger = logger;
+            this.progress = progress;
+        }
+        synchronized void onExtract(ArchiveEntry archiveEntry){
+            long size = archiveEntry.getDataSize();
+            APKLogger logger = this.logger;
+            if(logger != null && size > LOG_LARGE_FILE_SIZE){
+                logger.logVerbose("Extracting ["
+                        + FileUtil.toReadableFileSize(size) + "] "+ archiveEntry.getName());
+            }
+            ExtractProgress progress = this.progress;
+            if(progress != null){
+                progress.onExtractFile(archiveEntry.getName(), size, extractedBytes);
+            }
+            extractedBytes += size;
+        }
+    }
     private File toFile(File dir, ArchiveEntry archiveEntry){
         String name = archiveEntry.getName().replace('/', File.separatorChar);
         return new File(dir, name);
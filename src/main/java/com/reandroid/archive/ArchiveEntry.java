@@ -21,9 +21,13 @@ import com.reandroid.utils.HexUtil;
 
 public class ArchiveEntry {
     private final LocalFileHeader localFileHeader;
+    private Archive<?> archive;
     public ArchiveEntry(LocalFileHeader lfh){
         this.localFileHeader = lfh;
     }
+    void setArchive(Archive<?> archive){
+        this.archive = archive;
+    }
     public long getDataSize(){
         if(getMethod() != Archive.DEFLATED){
             return getSize();
@@ -78,6 +82,10 @@ public class ArchiveEntry {
     public void setName(String name){
         localFileHeader.setFileName(name);
         getCentralEntryHeader().setFileName(name);
+        Archive<?> archive = this.archive;
+        if(archive != null){
+            archive.onEntryRenamed();
+        }
     }
     public String getComment(){
         return getCentralEntryHeader().getComment();
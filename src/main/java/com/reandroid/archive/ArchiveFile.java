@@ -17,6 +17,7 @@ package com.reandroid.archive;
 
 import com.reandroid.archive.io.ArchiveFileEntrySource;
 import com.reandroid.archive.io.ZipFileInput;
+import com.reandroid.archive.io.ZipMappedInput;
 import com.reandroid.utils.io.FileUtil;
 
 import java.io.File;
@@ -33,6 +34,10 @@ public class ArchiveFile extends Archive<ZipFileInput>{
         this(new ZipFileInput(file));
     }
 
+    public static ArchiveFile openMapped(File file) throws IOException {
+        return new ArchiveFile(new ZipMappedInput(file));
+    }
+
     @Override
     InputSource createInputSource(ArchiveEntry entry) {
         return new ArchiveFileEntrySource(getZipInput(), entry);
@@ -42,9 +47,8 @@ public class ArchiveFile extends Archive<ZipFileInput>{
         FileUtil.createNewFile(file);
         StandardOpenOption openOption = StandardOpenOption.WRITE;
         FileChannel outputChannel = FileChannel.open(file.toPath(), openOption);
-        FileChannel fileChannel = getZipInput().getFileChannel();
-        fileChannel.position(archiveEntry.getFileOffset());
-        outputChannel.transferFrom(fileChannel, 0, archiveEntry.getDataSize());
+        getZipInput().transferTo(archiveEntry.getFileOffset(),
+                archiveEntry.getDataSize(), outputChannel);
         outputChannel.close();
     }
 }
@@ -81,6 +81,11 @@ public class ArchiveEntrySource<T extends ZipInput> extends InputSource {
             return false;
         }
     }
+    public InputStream openRawStream() throws IOException {
+        ArchiveEntry archiveEntry = getArchiveEntry();
+        return getZipSource().getInputStream(
+                archiveEntry.getFileOffset(), archiveEntry.getDataSize());
+    }
     private InputStream openInflaterInputStream() throws IOException {
         ArchiveEntry archiveEntry = getArchiveEntry();
         InputStream inputStream = getZipSource().getInputStream(
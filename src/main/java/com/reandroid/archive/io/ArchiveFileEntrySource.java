@@ -20,7 +20,6 @@ import com.reandroid.archive.ArchiveEntry;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
 
@@ -33,27 +32,17 @@ public class ArchiveFileEntrySource extends ArchiveEntrySource<ZipFileInput> {
 
     @Override
     public byte[] getBytes(int length) throws IOException {
-        FileChannel fileChannel = getFileChannel();
-        if(getMethod() != Archive.STORED || fileChannel == null){
+        if(getMethod() != Archive.STORED){
             return super.getBytes(length);
         }
         byte[] bytes = new byte[length];
-        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
-        fileChannel.read(byteBuffer);
+        getZipSource().read(getArchiveEntry().getFileOffset(), bytes, 0, length);
         return bytes;
     }
 
-    FileChannel getFileChannel() throws IOException {
-        ZipFileInput zipInput = getZipSource();
-        FileChannel fileChannel = zipInput.getFileChannel();
-        fileChannel.position(getArchiveEntry().getFileOffset());
-        return fileChannel;
-    }
-
     @Override
     public void write(File file) throws IOException {
-        FileChannel fileChannel = getFileChannel();
-        if(getMethod() != Archive.STORED || fileChannel == null){
+        if(getMethod() != Archive.STORED){
             super.write(file);
             return;
         }
@@ -67,7 +56,7 @@ public class ArchiveFileEntrySource extends ArchiveEntrySource<ZipFileInput> {
         file.createNewFile();
         StandardOpenOption openOption = StandardOpenOption.WRITE;
         FileChannel outputChannel = FileChannel.open(file.toPath(), openOption);
-        outputChannel.transferFrom(fileChannel, 0, getLength());
+        getZipSource().transferTo(getArchiveEntry().getFileOffset(), getLength(), outputChannel);
         outputChannel.close();
     }
 
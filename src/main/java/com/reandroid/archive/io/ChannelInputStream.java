@@ -0,0 +1,183 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a region of a shared channel using absolute positions only, so that
+ * several streams of the same channel can be consumed from different threads.
+ * */
+public class ChannelInputStream extends InputStream {
+    private final FileChannel fileChannel;
+    private final long offset;
+    private final long length;
+    private final byte[] buffer;
+    private long position;
+    private long bufferStart;
+    private int bufferLength;
+    private long mark;
+
+    public ChannelInputStream(FileChannel fileChannel, long offset, long length, int bufferSize){
+        this.fileChannel = fileChannel;
+        this.offset = offset;
+        this.length = length;
+        if(bufferSize > length){
+            bufferSize = (int) length;
+        }
+        if(bufferSize <= 0){
+            bufferSize = 1;
+        }
+        this.buffer = new byte[bufferSize];
+    }
+    public ChannelInputStream(FileChannel fileChannel, long offset, long length){
+        this(fileChannel, offset, length, DEFAULT_BUFFER_SIZE);
+    }
+
+    @Override
+    public int read(byte[] bytes) throws IOException {
+        return read(bytes, 0, bytes.length);
+    }
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        if(len == 0){
+            return 0;
+        }
+        long available = this.length - this.position;
+        if(available <= 0){
+            return -1;
+        }
+        if(len > available){
+            len = (int) available;
+        }
+        if(len >= buffer.length){
+            // large reads go straight to the caller array
+            int read = readChannel(bytes, off, len);
+            if(read == 0){
+                return -1;
+            }
+            position += read;
+            return read;
+        }
+        int result = 0;
+        while (len > 0 && loadBuffer()){
+            int start = (int) (position - bufferStart);
+            int count = Math.min(len, bufferLength - start);
+            System.arraycopy(buffer, start, bytes, off, count);
+            position += count;
+            off += count;
+            len -= count;
+            result += count;
+        }
+        if(result == 0){
+            return -1;
+        }
+        return result;
+    }
+    @Override
+    public int read() throws IOException {
+        if(position >= length || !loadBuffer()){
+            return -1;
+        }
+        int i = buffer[(int) (position - bufferStart)] & 0xff;
+        position ++;
+        return i;
+    }
+    private boolean loadBuffer() throws IOException {
+        if(position >= bufferStart && position < bufferStart + bufferLength){
+            return true;
+        }
+        long available = length - position;
+        if(available <= 0){
+            return false;
+        }
+        int count = buffer.length;
+        if(count > available){
+            count = (int) available;
+        }
+        bufferStart = position;
+        bufferLength = readChannel(buffer, 0, count);
+        return bufferLength > 0;
+    }
+    // Channel ending before this region does means a truncated file
+    private int readChannel(byte[] bytes, int off, int len) throws IOException {
+        int read = readFully(fileChannel, offset + position, bytes, off, len);
+        if(read != 0 && read < len){
+            throw new EOFException("Unexpected end of channel at "
+                    + (offset + position + read) + ", expecting " + (len - read) + " more bytes");
+        }
+        return read;
+    }
+    @Override
+    public long skip(long amount) {
+        if(amount <= 0){
+            return 0;
+        }
+        long available = length - position;
+        if(amount > available){
+            amount = available;
+        }
+        position += amount;
+        return amount;
+    }
+    @Override
+    public int available(){
+        long available = length - position;
+        if(available > Integer.MAX_VALUE){
+            return Integer.MAX_VALUE;
+        }
+        return (int) available;
+    }
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+    @Override
+    public synchronized void mark(int readLimit){
+        this.mark = position;
+    }
+    @Override
+    public synchronized void reset(){
+        this.position = mark;
+    }
+    @Override
+    public void close(){
+        this.position = length;
+    }
+    @Override
+    public String toString(){
+        return position + " / " + length;
+    }
+
+    public static int readFully(FileChannel fileChannel, long position, byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, offset, length);
+        int result = 0;
+        while (byteBuffer.hasRemaining()){
+            int read = fileChannel.read(byteBuffer, position + result);
+            if(read < 0){
+                break;
+            }
+            result += read;
+        }
+        return result;
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 64;
+}
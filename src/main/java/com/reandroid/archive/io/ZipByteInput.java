@@ -19,6 +19,8 @@ import com.reandroid.common.BytesInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class ZipByteInput extends ZipInput{
     private final byte[] array;
@@ -76,6 +78,11 @@ public class ZipByteInput extends ZipInput{
         return new BytesInputStream(this.array, (int)(offset + this.offset), (int)length);
     }
     @Override
+    public ByteBuffer getByteBuffer(long offset, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(this.array, (int) (offset + this.offset), (int) length);
+        return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    @Override
     public byte[] getFooter(int minLength) {
         if(minLength <= 0){
             return new byte[0];
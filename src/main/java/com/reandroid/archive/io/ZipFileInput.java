@@ -15,17 +15,14 @@
  */
 package com.reandroid.archive.io;
 
-import com.reandroid.common.FileChannelInputStream;
-
 import java.io.*;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.StandardOpenOption;
 
 public class ZipFileInput extends ZipInput {
     private final File file;
-    private FileChannel fileChannel;
-    private InputStream mCurrentInputStream;
+    private volatile FileChannel fileChannel;
     public ZipFileInput(File file){
         this.file = file;
     }
@@ -52,11 +49,23 @@ public class ZipFileInput extends ZipInput {
     }
     @Override
     public InputStream getInputStream(long offset, long length) throws IOException {
-        closeCurrentInputStream();
+        return new ChannelInputStream(getFileChannel(), offset, length);
+    }
+    public int read(long position, byte[] bytes, int offset, int length) throws IOException {
+        return ChannelInputStream.readFully(getFileChannel(), position, bytes, offset, length);
+    }
+    public long transferTo(long position, long length, WritableByteChannel target) throws IOException {
         FileChannel fileChannel = getFileChannel();
-        fileChannel.position(offset);
-        mCurrentInputStream = new FileChannelInputStream(fileChannel, length);
-        return mCurrentInputStream;
+        long transferred = 0;
+        while (transferred < length){
+            long count = fileChannel.transferTo(position + transferred,
+                    length - transferred, target);
+            if(count <= 0){
+                break;
+            }
+            transferred += count;
+        }
+        return transferred;
     }
 
     @Override
@@ -66,11 +75,9 @@ public class ZipFileInput extends ZipInput {
             minLength = (int) position;
         }
         position = position - minLength;
-        FileChannel fileChannel = getFileChannel();
-        fileChannel.position(position);
-        ByteBuffer buffer = ByteBuffer.allocate(minLength);
-        fileChannel.read(buffer);
-        return buffer.array();
+        byte[] bytes = new byte[minLength];
+        read(position, bytes, 0, minLength);
+        return bytes;
     }
     public FileChannel getFileChannel() throws IOException {
         FileChannel fileChannel = this.fileChannel;
@@ -78,6 +85,10 @@ public class ZipFileInput extends ZipInput {
             return fileChannel;
         }
         synchronized (this){
+            fileChannel = this.fileChannel;
+            if(fileChannel != null){
+                return fileChannel;
+            }
             if(!file.isFile()){
                 throw new FileNotFoundException("No such file: " + file);
             }
@@ -88,7 +99,6 @@ public class ZipFileInput extends ZipInput {
     }
     @Override
     public void close() throws IOException {
-        closeCurrentInputStream();
         closeChannel();
     }
     @Override
@@ -111,14 +121,6 @@ public class ZipFileInput extends ZipInput {
             this.fileChannel = null;
         }
     }
-    private void closeCurrentInputStream() throws IOException {
-        InputStream current = this.mCurrentInputStream;
-        if(current == null){
-            return;
-        }
-        current.close();
-        mCurrentInputStream = null;
-    }
     @Override
     public String toString(){
         return "File: " + this.file;
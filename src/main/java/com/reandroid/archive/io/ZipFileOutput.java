@@ -39,6 +39,21 @@ public class ZipFileOutput extends ZipOutput{
         length = fileChannel.transferFrom(input, pos, length);
         fileChannel.position(pos + length);
     }
+    public void write(FileChannel input, long offset, long length) throws IOException{
+        FileChannel fileChannel = getFileChannel();
+        long pos = fileChannel.position();
+        long transferred = 0;
+        while (transferred < length){
+            long count = input.transferTo(offset + transferred,
+                    length - transferred, fileChannel);
+            if(count <= 0){
+                throw new IOException("Failed to transfer bytes: "
+                        + transferred + "/" + length);
+            }
+            transferred += count;
+        }
+        fileChannel.position(pos + transferred);
+    }
 
     @Override
     public long position() throws IOException {
@@ -15,8 +15,17 @@
  */
 package com.reandroid.archive.io;
 
+import com.reandroid.utils.io.IOUtil;
+
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public abstract class ZipInput implements ReadOnlyStream {
     public abstract byte[] getFooter(int minLength) throws IOException;
+
+    public ByteBuffer getByteBuffer(long offset, long length) throws IOException {
+        byte[] bytes = IOUtil.readFully(getInputStream(offset, length));
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
 }
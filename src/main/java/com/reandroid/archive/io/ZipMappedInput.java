@@ -0,0 +1,102 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.io;
+
+import com.reandroid.common.ByteBufferInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class ZipMappedInput extends ZipFileInput {
+    private volatile MappedByteBuffer mappedBuffer;
+    public ZipMappedInput(File file){
+        super(file);
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer(long offset, long length) throws IOException {
+        ByteBuffer buffer = getMappedBuffer();
+        if(buffer == null){
+            return super.getByteBuffer(offset, length);
+        }
+        if(offset < 0 || length < 0 || offset + length > buffer.capacity()){
+            throw new IOException("Out of bounds: offset = " + offset
+                    + ", length = " + length + ", file length = " + buffer.capacity());
+        }
+        buffer = buffer.duplicate();
+        buffer.position((int) offset);
+        buffer.limit((int) (offset + length));
+        return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    @Override
+    public InputStream getInputStream(long offset, long length) throws IOException {
+        if(getMappedBuffer() == null){
+            return super.getInputStream(offset, length);
+        }
+        return new ByteBufferInputStream(getByteBuffer(offset, length));
+    }
+    @Override
+    public byte[] getFooter(int minLength) throws IOException {
+        ByteBuffer buffer = getMappedBuffer();
+        if(buffer == null){
+            return super.getFooter(minLength);
+        }
+        long length = buffer.capacity();
+        if(minLength > length){
+            minLength = (int) length;
+        }
+        byte[] bytes = new byte[minLength];
+        getByteBuffer(length - minLength, minLength).get(bytes);
+        return bytes;
+    }
+    public MappedByteBuffer getMappedBuffer() throws IOException {
+        MappedByteBuffer mappedBuffer = this.mappedBuffer;
+        if(mappedBuffer != null){
+            return mappedBuffer;
+        }
+        synchronized (this){
+            mappedBuffer = this.mappedBuffer;
+            if(mappedBuffer != null){
+                return mappedBuffer;
+            }
+            FileChannel fileChannel = getFileChannel();
+            long size = fileChannel.size();
+            if(size > Integer.MAX_VALUE){
+                // too large for a single mapping, fall back to channel reads
+                return null;
+            }
+            mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.mappedBuffer = mappedBuffer;
+            return mappedBuffer;
+        }
+    }
+    @Override
+    public void close() throws IOException {
+        synchronized (this){
+            this.mappedBuffer = null;
+        }
+        super.close();
+    }
+    @Override
+    public String toString(){
+        return "Mapped " + super.toString();
+    }
+}
@@ -15,17 +15,27 @@
  */
 package com.reandroid.archive.writer;
 
+import com.reandroid.archive.ByteInputSource;
+import com.reandroid.archive.FileInputSource;
 import com.reandroid.archive.InputSource;
 import com.reandroid.archive.RenamedInputSource;
+import com.reandroid.archive.io.ArchiveEntrySource;
 import com.reandroid.archive.io.ArchiveFileEntrySource;
 import com.reandroid.archive.io.ZipFileOutput;
 import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.common.BytesOutputStream;
+import com.reandroid.utils.concurrent.WorkerPool;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 public class ApkFileWriter extends ApkWriter<ZipFileOutput, FileOutputSource> {
     private BufferFileInput buffer;
+    private WorkerPool workerPool;
     public ApkFileWriter(File file, InputSource[] sources) throws IOException {
         super(new ZipFileOutput(file), sources);
     }
@@ -66,6 +76,11 @@ public class ApkFileWriter extends ApkWriter<ZipFileOutput, FileOutputSource> {
         File bufferFile = getBufferFile();
         BufferFileOutput output = new BufferFileOutput(bufferFile);
         BufferFileInput input = new BufferFileInput(bufferFile);
+        WorkerPool workerPool = getWorkerPool();
+        List<FileOutputSource> pending = new ArrayList<>();
+        List<Callable<byte[]>> tasks = new ArrayList<>();
+        long pendingBytes = 0;
+        int maxPending = workerPool.getThreadCount() * 8;
         FileOutputSource tableSource = null;
         int length = outputList.length;
         for(int i = 0; i < length; i++){
@@ -78,14 +93,88 @@ public class ApkFileWriter extends ApkWriter<ZipFileOutput, FileOutputSource> {
             onCompressFileProgress(inputSource.getAlias(),
                     inputSource.getMethod(),
                     output.position());
-            fileOutputSource.makeBuffer(input, output);
+            if(!workerPool.isParallel()){
+                fileOutputSource.makeBuffer(input, output);
+                continue;
+            }
+            if(fileOutputSource.isBuffered()){
+                continue;
+            }
+            if(fileOutputSource.getRawSource() != null){
+                fileOutputSource.makeBuffer(input, output);
+                continue;
+            }
+            InputSource content = toConcurrentSource(inputSource);
+            pending.add(fileOutputSource);
+            tasks.add(() -> fileOutputSource.compress(content));
+            if(content instanceof ByteInputSource){
+                pendingBytes += ((ByteInputSource) content).getBytes().length;
+            }
+            if(tasks.size() >= maxPending || pendingBytes >= MAX_PENDING_BYTES){
+                flushBuffer(workerPool, pending, tasks, input, output);
+                pendingBytes = 0;
+            }
         }
+        flushBuffer(workerPool, pending, tasks, input, output);
         if(tableSource != null){
             tableSource.makeBuffer(input, output);
         }
         output.close();
         return input;
     }
+    private void flushBuffer(WorkerPool workerPool, List<FileOutputSource> pending,
+                             List<Callable<byte[]>> tasks, BufferFileInput input,
+                             BufferFileOutput output) throws IOException {
+        if(tasks.isEmpty()){
+            return;
+        }
+        List<byte[]> results = workerPool.invokeAll(tasks);
+        int size = results.size();
+        for(int i = 0; i < size; i++){
+            pending.get(i).appendBuffer(input, output, results.get(i));
+        }
+        pending.clear();
+        tasks.clear();
+    }
+    // Serialization of blocks stays on the writer thread, only files, archive
+    // entries and already serialized bytes are read and compressed concurrently
+    private InputSource toConcurrentSource(InputSource inputSource) throws IOException {
+        if(isConcurrentReadable(inputSource)){
+            return inputSource;
+        }
+        BytesOutputStream outputStream = new BytesOutputStream();
+        inputSource.write(outputStream);
+        outputStream.close();
+        ByteInputSource content = new ByteInputSource(outputStream.toByteArray(),
+                inputSource.getAlias());
+        content.setMethod(inputSource.getMethod());
+        return content;
+    }
+    private static boolean isConcurrentReadable(InputSource inputSource){
+        if(inputSource instanceof RenamedInputSource){
+            inputSource = ((RenamedInputSource<?>) inputSource).getInputSource();
+            return isConcurrentReadable(inputSource);
+        }
+        return inputSource instanceof FileInputSource
+                || inputSource instanceof ArchiveEntrySource;
+    }
+    public WorkerPool getWorkerPool() {
+        WorkerPool workerPool = this.workerPool;
+        if(workerPool == null){
+            workerPool = WorkerPool.serial();
+            this.workerPool = workerPool;
+        }
+        return workerPool;
+    }
+    public void setWorkerPool(WorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+    public void setThreadCount(int threadCount) {
+        setWorkerPool(new WorkerPool(threadCount));
+    }
+    public void setExecutor(Executor executor) {
+        setWorkerPool(new WorkerPool(executor));
+    }
     private File getBufferFile(){
         File file = getZipOutput().getFile();
         File dir = file.getParentFile();
@@ -100,4 +189,6 @@ public class ApkFileWriter extends ApkWriter<ZipFileOutput, FileOutputSource> {
         bufFile.deleteOnExit();
         return bufFile;
     }
+
+    private static final long MAX_PENDING_BYTES = 1024L * 1000 * 64;
 }
@@ -17,6 +17,7 @@ package com.reandroid.archive.writer;
 
 import com.reandroid.archive.InputSource;
 import com.reandroid.archive.block.LocalFileHeader;
+import com.reandroid.archive.io.ZipByteOutput;
 import com.reandroid.archive.io.ZipFileOutput;
 import com.reandroid.archive.io.ZipOutput;
 
@@ -41,6 +42,29 @@ class FileOutputSource extends OutputSource {
         }
         this.entryBuffer = writeBuffer(input, output);
     }
+    boolean isBuffered(){
+        if(this.entryBuffer != null){
+            return true;
+        }
+        EntryBuffer entryBuffer = makeFromEntry();
+        if(entryBuffer != null){
+            this.entryBuffer = entryBuffer;
+            return true;
+        }
+        return false;
+    }
+    byte[] compress(InputSource content) throws IOException {
+        ZipByteOutput buffer = new ZipByteOutput();
+        writeBuffer(buffer, content);
+        buffer.close();
+        return buffer.toByteArray();
+    }
+    void appendBuffer(BufferFileInput input, BufferFileOutput output, byte[] compressed) throws IOException {
+        long offset = output.position();
+        output.getOutputStream().write(compressed);
+        this.entryBuffer = new EntryBuffer(input, offset, compressed.length);
+        getInputSource().disposeInputSource();
+    }
     private EntryBuffer writeBuffer(BufferFileInput input, ZipOutput output) throws IOException {
         long offset = output.position();
         writeBuffer(output);
@@ -54,16 +78,14 @@ class FileOutputSource extends OutputSource {
         logLargeFileWrite();
         EntryBuffer entryBuffer = this.entryBuffer;
         FileChannel input = entryBuffer.getZipFileInput().getFileChannel();
-        input.position(entryBuffer.getOffset());
         writeLFH(zipFileOutput, zipAligner);
-        writeData(input, entryBuffer.getLength(), zipFileOutput);
+        writeData(input, entryBuffer.getOffset(), entryBuffer.getLength(), zipFileOutput);
         writeDD(zipFileOutput);
     }
-    private void writeData(FileChannel input, long length, ZipFileOutput apkFileWriter) throws IOException{
-        long offset = apkFileWriter.position();
+    private void writeData(FileChannel input, long offset, long length, ZipFileOutput apkFileWriter) throws IOException{
         LocalFileHeader lfh = getLocalFileHeader();
-        lfh.setFileOffset(offset);
-        apkFileWriter.write(input, length);
+        lfh.setFileOffset(apkFileWriter.position());
+        apkFileWriter.write(input, offset, length);
     }
 
 
@@ -17,11 +17,14 @@ package com.reandroid.archive.writer;
 
 import com.reandroid.apk.APKLogger;
 import com.reandroid.archive.Archive;
+import com.reandroid.archive.ArchiveEntry;
 import com.reandroid.archive.InputSource;
+import com.reandroid.archive.RenamedInputSource;
 import com.reandroid.archive.ZipSignature;
 import com.reandroid.archive.block.CentralEntryHeader;
 import com.reandroid.archive.block.DataDescriptor;
 import com.reandroid.archive.block.LocalFileHeader;
+import com.reandroid.archive.io.ArchiveEntrySource;
 import com.reandroid.archive.io.CountingOutputStream;
 import com.reandroid.archive.io.ZipOutput;
 import com.reandroid.utils.io.FileUtil;
@@ -42,8 +45,27 @@ class OutputSource {
     }
 
     void writeBuffer(ZipOutput zipOutput) throws IOException {
-        LocalFileHeader lfh = getLocalFileHeader();
         InputSource inputSource = getInputSource();
+        ArchiveEntrySource<?> rawSource = getRawSource();
+        if(rawSource != null){
+            writeRaw(zipOutput, rawSource);
+        }else {
+            writeBuffer(zipOutput, inputSource);
+        }
+        inputSource.disposeInputSource();
+    }
+    private void writeRaw(ZipOutput zipOutput, ArchiveEntrySource<?> rawSource) throws IOException {
+        ArchiveEntry archiveEntry = rawSource.getArchiveEntry();
+        long offset = zipOutput.position();
+        zipOutput.write(rawSource.openRawStream());
+        LocalFileHeader lfh = getLocalFileHeader();
+        lfh.setMethod(archiveEntry.getMethod());
+        lfh.setCrc(archiveEntry.getCrc());
+        lfh.setSize(archiveEntry.getSize());
+        lfh.setCompressedSize(zipOutput.position() - offset);
+    }
+    void writeBuffer(ZipOutput zipOutput, InputSource inputSource) throws IOException {
+        LocalFileHeader lfh = getLocalFileHeader();
         OutputStream rawStream = zipOutput.getOutputStream();
         CountingOutputStream<OutputStream> rawCounter = new CountingOutputStream<>(rawStream);
         CountingOutputStream<DeflaterOutputStream> deflateCounter = null;
@@ -73,7 +95,6 @@ class OutputSource {
             lfh.setMethod(Archive.STORED);
             lfh.setCrc(rawCounter.getCrc());
         }
-        inputSource.disposeInputSource();
     }
     void writeCEH(ZipOutput zipOutput) throws IOException{
         LocalFileHeader lfh = getLocalFileHeader();
@@ -130,7 +151,36 @@ class OutputSource {
         }
         return lfh;
     }
+    ArchiveEntrySource<?> getArchiveEntrySource(){
+        InputSource inputSource = getInputSource();
+        if(inputSource instanceof ArchiveEntrySource){
+            return (ArchiveEntrySource<?>) inputSource;
+        }
+        if(inputSource instanceof RenamedInputSource){
+            return ((RenamedInputSource<?>) inputSource)
+                    .getParentInputSource(ArchiveEntrySource.class);
+        }
+        return null;
+    }
+    ArchiveEntrySource<?> getRawSource(){
+        ArchiveEntrySource<?> entrySource = getArchiveEntrySource();
+        if(entrySource == null){
+            return null;
+        }
+        int method = entrySource.getArchiveEntry().getMethod();
+        if(method != getInputSource().getMethod()){
+            return null;
+        }
+        if(method != Archive.STORED && method != Archive.DEFLATED){
+            return null;
+        }
+        return entrySource;
+    }
     LocalFileHeader createLocalFileHeader(){
+        ArchiveEntrySource<?> rawSource = getRawSource();
+        if(rawSource != null){
+            return rawSource.getArchiveEntry().getLocalFileHeader().copy();
+        }
         InputSource inputSource = getInputSource();
         LocalFileHeader lfh = new LocalFileHeader();
         lfh.setSignature(ZipSignature.LOCAL_FILE);
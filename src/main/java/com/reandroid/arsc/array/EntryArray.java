@@ -148,6 +148,18 @@ public class EntryArray extends OffsetBlockArray<Entry> implements JSONConvert<J
         if(typeBlock == null){
             return null;
         }
+        SpecTypePair specTypePair = typeBlock.getParentSpecTypePair();
+        if(specTypePair != null){
+            int id = specTypePair.resolveEntryId(entryName);
+            if(id < 0){
+                return null;
+            }
+            Entry entry = getEntry(id);
+            if(entry != null && entryName.equals(entry.getName())){
+                return entry;
+            }
+            // the name may be given to another id in this type block
+        }
         PackageBlock packageBlock = typeBlock.getPackageBlock();
         if(packageBlock == null){
             return null;
@@ -204,7 +204,7 @@ public class SpecTypePairArray extends BlockArray<SpecTypePair>
         validateEntryCounts();
     }
 
-    private void validateEntryCounts(){
+    public void validateEntryCounts(){
         Map<Byte, Integer> entryCountMap=mapHighestEntryCount();
         for(Map.Entry<Byte, Integer> entry:entryCountMap.entrySet()){
             byte id=entry.getKey();
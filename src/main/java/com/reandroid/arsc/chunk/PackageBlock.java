@@ -48,6 +48,7 @@ import com.reandroid.utils.HexUtil;
 import com.reandroid.utils.ObjectsUtil;
 import com.reandroid.utils.StringsUtil;
 import com.reandroid.utils.collection.*;
+import com.reandroid.utils.concurrent.WorkerPool;
 import com.reandroid.utils.io.IOUtil;
 import com.reandroid.xml.XMLElement;
 import com.reandroid.xml.XMLFactory;
@@ -59,6 +60,7 @@ import org.xmlpull.v1.XmlSerializer;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -243,7 +245,13 @@ public class PackageBlock extends Chunk<PackageHeader>
     public String refreshFull(){
         return refreshFull(true);
     }
+    public String refreshFull(WorkerPool workerPool){
+        return refreshFull(true, workerPool);
+    }
     public String refreshFull(boolean elementsRefresh){
+        return refreshFull(elementsRefresh, null);
+    }
+    public String refreshFull(boolean elementsRefresh, WorkerPool workerPool){
         int sizeOld = getHeaderBlock().getChunkSize();
         StringBuilder message = new StringBuilder();
         boolean appendOnce = false;
@@ -259,7 +267,7 @@ public class PackageBlock extends Chunk<PackageHeader>
             }
             return null;
         }
-        refresh();
+        refresh(workerPool);
         int sizeNew = getHeaderBlock().getChunkSize();
         if(sizeOld != sizeNew){
             if(appendOnce){
@@ -296,9 +304,23 @@ public class PackageBlock extends Chunk<PackageHeader>
         setName("");
     }
     public int resolveResourceId(String type, String name){
+        SpecTypePair specTypePair = getSpecTypePair(type);
+        if(specTypePair != null){
+            int resourceId = specTypePair.resolveResourceId(name);
+            if(resourceId != 0){
+                return resourceId;
+            }
+        }
         return getSpecStringPool().resolveResourceId(type, name);
     }
     public int resolveResourceId(int typeId, String name){
+        SpecTypePair specTypePair = getSpecTypePair(typeId);
+        if(specTypePair != null){
+            int resourceId = specTypePair.resolveResourceId(name);
+            if(resourceId != 0){
+                return resourceId;
+            }
+        }
         return getSpecStringPool().resolveResourceId(typeId, name);
     }
     public Entry getEntry(String type, String name){
@@ -403,6 +425,67 @@ public class PackageBlock extends Chunk<PackageHeader>
     }
 
 
+    /**
+     * Same as refresh(), but string pools and then types are refreshed concurrently
+     * before the sequential layout of package offsets
+     * */
+    public void refresh(WorkerPool workerPool){
+        if(workerPool == null || !workerPool.isParallel()){
+            refresh();
+            return;
+        }
+        List<Runnable> poolTasks = new ArrayList<>();
+        List<SpecTypePair> specTypePairList = new ArrayList<>();
+        prepareRefreshAhead(poolTasks, specTypePairList);
+        try {
+            workerPool.runAll(poolTasks);
+            workerPool.runAll(toRefreshAheadTasks(specTypePairList));
+        }finally {
+            // every task has finished here, even if one failed, see WorkerPool.invokeAll.
+            // lays out what was refreshed ahead and completes the rest
+            try {
+                refresh();
+            }catch (RuntimeException | Error throwable){
+                cancelRefreshAhead();
+                throw throwable;
+            }
+        }
+    }
+    void prepareRefreshAhead(List<Runnable> poolTasks, List<SpecTypePair> specTypePairList){
+        removeEmpty();
+        getSpecTypePairArray().validateEntryCounts();
+        poolTasks.add(getTypeStringPool()::refreshAhead);
+        poolTasks.add(getSpecStringPool()::refreshAhead);
+        Iterator<SpecTypePair> iterator = getSpecTypePairs();
+        while (iterator.hasNext()){
+            specTypePairList.add(iterator.next());
+        }
+    }
+    /**
+     * Drops pending refreshAhead() of string pools and types, used when the refresh
+     * that would consume them failed
+     * */
+    void cancelRefreshAhead(){
+        getTypeStringPool().cancelRefreshAhead();
+        getSpecStringPool().cancelRefreshAhead();
+        Iterator<SpecTypePair> iterator = getSpecTypePairs();
+        while (iterator.hasNext()){
+            iterator.next().cancelRefreshAhead();
+        }
+    }
+    static List<Runnable> toRefreshAheadTasks(List<SpecTypePair> specTypePairList){
+        // largest types first, keeps workers busy till the end
+        specTypePairList.sort((pair1, pair2) -> Integer.compare(
+                refreshWeight(pair2), refreshWeight(pair1)));
+        List<Runnable> results = new ArrayList<>(specTypePairList.size());
+        for(SpecTypePair specTypePair : specTypePairList){
+            results.add(specTypePair::refreshAhead);
+        }
+        return results;
+    }
+    private static int refreshWeight(SpecTypePair specTypePair){
+        return specTypePair.getHighestEntryCount() * specTypePair.countTypeBlocks();
+    }
     @Override
     protected void onPreRefresh() {
         removeEmpty();
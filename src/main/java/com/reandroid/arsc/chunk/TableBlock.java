@@ -18,11 +18,14 @@ package com.reandroid.arsc.chunk;
 import com.reandroid.arsc.ARSCLib;
 import com.reandroid.arsc.ApkFile;
 import com.reandroid.arsc.array.PackageArray;
+import com.reandroid.arsc.container.SpecTypePair;
 import com.reandroid.arsc.header.HeaderBlock;
 import com.reandroid.arsc.header.InfoHeader;
 import com.reandroid.arsc.header.TableHeader;
 import com.reandroid.arsc.io.BlockReader;
+import com.reandroid.arsc.io.ByteBufferBlockReader;
 import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.model.ResourceName;
 import com.reandroid.arsc.pool.TableStringPool;
 import com.reandroid.arsc.value.Entry;
@@ -35,10 +38,13 @@ import com.reandroid.json.JSONConvert;
 import com.reandroid.json.JSONObject;
 import com.reandroid.utils.ObjectsUtil;
 import com.reandroid.utils.collection.*;
+import com.reandroid.utils.concurrent.WorkerPool;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -54,6 +60,7 @@ public class TableBlock extends Chunk<TableHeader>
     private ReferenceResolver referenceResolver;
     private PackageBlock mCurrentPackage;
     private PackageBlock mEmptyTablePackage;
+    private final ResourceIdIndex mResourceIdIndex;
 
     public TableBlock() {
         super(new TableHeader(), 2);
@@ -61,6 +68,7 @@ public class TableBlock extends Chunk<TableHeader>
         this.mTableStringPool = new TableStringPool(true);
         this.mPackageArray = new PackageArray(header.getPackageCount());
         this.mFrameWorks = new ArrayCollection<>();
+        this.mResourceIdIndex = new ResourceIdIndex();
         addChild(mTableStringPool);
         addChild(mPackageArray);
     }
@@ -102,6 +110,24 @@ public class TableBlock extends Chunk<TableHeader>
         if(resourceId == 0){
             return null;
         }
+        ResourceIdIndex resourceIdIndex = this.mResourceIdIndex;
+        ResourceEntry resourceEntry = resourceIdIndex.get(resourceId);
+        if(resourceEntry == null){
+            resourceEntry = searchResource(resourceId);
+            if(resourceEntry != null){
+                resourceIdIndex.put(resourceId, resourceEntry, resourceEntry.any());
+            }
+        }
+        return resourceEntry;
+    }
+    /**
+     * Clears resolved ids of getResource(int), call after moving or removing entries
+     * other than through refresh
+     * */
+    public void clearResourceIdIndex(){
+        mResourceIdIndex.clear();
+    }
+    private ResourceEntry searchResource(int resourceId){
         Iterator<PackageBlock> iterator = getAllPackages();
         while (iterator.hasNext()){
             PackageBlock packageBlock = iterator.next();
@@ -283,9 +309,12 @@ public class TableBlock extends Chunk<TableHeader>
         return null;
     }
     public int resolveResourceId(String packageName, String type, String name){
-        Iterator<Entry> iterator = getEntries(packageName, type, name);
-        if(iterator.hasNext()){
-            return iterator.next().getResourceId();
+        Iterator<PackageBlock> iterator = getAllPackages(packageName);
+        while (iterator.hasNext()){
+            int resourceId = iterator.next().resolveResourceId(type, name);
+            if(resourceId != 0){
+                return resourceId;
+            }
         }
         return 0;
     }
@@ -380,6 +409,7 @@ public class TableBlock extends Chunk<TableHeader>
     }
     public void removePackage(PackageBlock packageBlock){
         getPackageArray().remove(packageBlock);
+        clearResourceIdIndex();
     }
     public Iterator<PackageBlock> getAllPackages(){
         return getAllPackages((PackageBlock) null);
@@ -433,6 +463,13 @@ public class TableBlock extends Chunk<TableHeader>
         return result;
     }
     public String refreshFull(){
+        return refreshFull(null);
+    }
+    /**
+     * Same as refreshFull(), packages are cleaned concurrently and the final refresh
+     * runs on the given pool, see refresh(WorkerPool)
+     * */
+    public String refreshFull(WorkerPool workerPool){
         int sizeOld = getHeaderBlock().getChunkSize();
         StringBuilder message = new StringBuilder();
         boolean appendOnce = false;
@@ -440,8 +477,11 @@ public class TableBlock extends Chunk<TableHeader>
             message.append("Removed unused table strings");
             appendOnce = true;
         }
-        for(PackageBlock packageBlock : this){
-            String packageMessage = packageBlock.refreshFull(false);
+        List<PackageBlock> packageBlockList = CollectionUtil.toList(iterator());
+        String[] packageMessages = refreshFullPackages(packageBlockList, workerPool);
+        for(int i = 0; i < packageMessages.length; i++){
+            PackageBlock packageBlock = packageBlockList.get(i);
+            String packageMessage = packageMessages[i];
             if(packageMessage == null){
                 continue;
             }
@@ -455,7 +495,7 @@ public class TableBlock extends Chunk<TableHeader>
             message.append(packageMessage);
             appendOnce = true;
         }
-        refresh();
+        refresh(workerPool);
         int sizeNew = getHeaderBlock().getChunkSize();
         if(sizeOld != sizeNew){
             if(appendOnce){
@@ -590,6 +630,7 @@ public class TableBlock extends Chunk<TableHeader>
     }
     public PackageBlock newPackage(int id, String name){
         PackageBlock packageBlock = getPackageArray().createNext();
+        clearResourceIdIndex();
         packageBlock.setId(id);
         if(name != null){
             packageBlock.setName(name);
@@ -625,12 +666,64 @@ public class TableBlock extends Chunk<TableHeader>
         int count = getPackageArray().size();
         getHeaderBlock().getPackageCount().set(count);
     }
+    private static String[] refreshFullPackages(List<PackageBlock> packageBlockList, WorkerPool workerPool){
+        int size = packageBlockList.size();
+        String[] results = new String[size];
+        if(size < 2 || workerPool == null || !workerPool.isParallel()){
+            for(int i = 0; i < size; i++){
+                results[i] = packageBlockList.get(i).refreshFull(false);
+            }
+            return results;
+        }
+        List<Runnable> tasks = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            int index = i;
+            tasks.add(() -> results[index] = packageBlockList.get(index).refreshFull(false));
+        }
+        workerPool.runAll(tasks);
+        return results;
+    }
+    /**
+     * Same as refresh(), but string pools and then types of all packages are refreshed
+     * concurrently, only the final offset layout runs sequentially
+     * */
+    public void refresh(WorkerPool workerPool){
+        if(workerPool == null || !workerPool.isParallel()){
+            refresh();
+            return;
+        }
+        clearResourceIdIndex();
+        getPackageArray().removeIf(PackageBlock::isEmpty);
+        List<Runnable> poolTasks = new ArrayList<>();
+        poolTasks.add(getTableStringPool()::refreshAhead);
+        List<SpecTypePair> specTypePairList = new ArrayList<>();
+        for(PackageBlock packageBlock : this){
+            packageBlock.prepareRefreshAhead(poolTasks, specTypePairList);
+        }
+        try {
+            workerPool.runAll(poolTasks);
+            workerPool.runAll(PackageBlock.toRefreshAheadTasks(specTypePairList));
+        }finally {
+            // every task has finished here, even if one failed, see WorkerPool.invokeAll.
+            // lays out what was refreshed ahead and completes the rest
+            try {
+                refresh();
+            }catch (RuntimeException | Error throwable){
+                getTableStringPool().cancelRefreshAhead();
+                for(PackageBlock packageBlock : this){
+                    packageBlock.cancelRefreshAhead();
+                }
+                throw throwable;
+            }
+        }
+    }
     @Override
     protected void onChunkRefreshed() {
         refreshPackageCount();
     }
     @Override
     protected void onPreRefresh() {
+        clearResourceIdIndex();
         getPackageArray().removeIf(PackageBlock::isEmpty);
         super.onPreRefresh();
     }
@@ -650,6 +743,7 @@ public class TableBlock extends Chunk<TableHeader>
         InfoHeader infoHeader = InfoHeader.read(reader);
         PackageArray packageArray = mPackageArray;
         packageArray.clear();
+        clearResourceIdIndex();
         while(infoHeader != null && reader.isAvailable()){
             ChunkType chunkType=infoHeader.getChunkType();
             if(chunkType==ChunkType.STRING){
@@ -679,6 +773,10 @@ public class TableBlock extends Chunk<TableHeader>
         BlockReader reader=new BlockReader(inputStream);
         super.readBytes(reader);
     }
+    public void readBytes(ByteBuffer byteBuffer) throws IOException{
+        BlockReader reader = new ByteBufferBlockReader(byteBuffer);
+        super.readBytes(reader);
+    }
     public final int writeBytes(File file) throws IOException{
         if(isNull()){
             throw new IOException("Can NOT save null block");
@@ -744,6 +842,7 @@ public class TableBlock extends Chunk<TableHeader>
     public void addFramework(TableBlock frameworkTable){
         if(frameworkTable != null && !containsFramework(frameworkTable)){
             mFrameWorks.add(frameworkTable);
+            clearResourceIdIndex();
         }
     }
     public boolean containsFramework(TableBlock tableBlock) {
@@ -762,9 +861,11 @@ public class TableBlock extends Chunk<TableHeader>
     }
     public void removeFramework(TableBlock tableBlock){
         mFrameWorks.remove(tableBlock);
+        clearResourceIdIndex();
     }
     public void clearFrameworks(){
         mFrameWorks.clear();
+        clearResourceIdIndex();
     }
     public PackageBlock parsePublicXml(XmlPullParser parser) throws IOException,
             XmlPullParserException {
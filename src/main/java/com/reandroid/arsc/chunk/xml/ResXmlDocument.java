@@ -22,6 +22,7 @@ import com.reandroid.arsc.container.BlockList;
 import com.reandroid.arsc.header.HeaderBlock;
 import com.reandroid.arsc.header.InfoHeader;
 import com.reandroid.arsc.io.BlockReader;
+import com.reandroid.arsc.io.ByteBufferBlockReader;
 import com.reandroid.arsc.pool.ResXmlStringPool;
 import com.reandroid.arsc.pool.StringPool;
 import com.reandroid.arsc.refactor.ResourceMergeOption;
@@ -38,6 +39,7 @@ import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlSerializer;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 
@@ -437,6 +439,10 @@ public class ResXmlDocument extends Chunk<HeaderBlock>
         BlockReader reader=new BlockReader(inputStream);
         super.readBytes(reader);
     }
+    public void readBytes(ByteBuffer byteBuffer) throws IOException{
+        BlockReader reader = new ByteBufferBlockReader(byteBuffer);
+        super.readBytes(reader);
+    }
     public final int writeBytes(File file) throws IOException{
         if(isNull()){
             throw new IOException("Can NOT save null block");
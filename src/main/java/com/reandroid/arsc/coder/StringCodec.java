@@ -0,0 +1,112 @@
+/*
+  *  Copyright (C) 2022 github.com/REAndroid
+  *
+  *  Licensed under the Apache License, Version 2.0 (the "License");
+  *  you may not use this file except in compliance with the License.
+  *  You may obtain a copy of the License at
+  *
+  *      http://www.apache.org/licenses/LICENSE-2.0
+  *
+  * Unless required by applicable law or agreed to in writing, software
+  * distributed under the License is distributed on an "AS IS" BASIS,
+  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  * See the License for the specific language governing permissions and
+  * limitations under the License.
+  */
+package com.reandroid.arsc.coder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stateless, thread safe string pool codec. Well-formed input is decoded directly by
+ * String constructors; UTF-8 input that is only valid as modified/three-byte UTF-8
+ * falls back to ThreeByteCharsetDecoder exactly like the former shared decoders did.
+ * */
+public class StringCodec {
+
+    public static String decodeUtf8(byte[] bytes, int offset, int length){
+        if(isValidUtf8(bytes, offset, length)){
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+        try {
+            // fresh instance, CharsetDecoder is stateful
+            return new ThreeByteCharsetDecoder()
+                    .decode(ByteBuffer.wrap(bytes, offset, length))
+                    .toString();
+        } catch (CharacterCodingException ignored) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+    }
+    public static String decodeUtf16(byte[] bytes, int offset, int length){
+        // malformed surrogates are replaced, same as the strict decoder's fallback
+        return new String(bytes, offset, length, StandardCharsets.UTF_16LE);
+    }
+    public static byte[] encodeUtf8(String text){
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+    public static byte[] encodeUtf16(String text){
+        return text.getBytes(StandardCharsets.UTF_16LE);
+    }
+    /**
+     * Same acceptance rules as the strict java UTF-8 decoder: no overlong forms,
+     * no encoded surrogates and nothing above U+10FFFF.
+     * */
+    public static boolean isValidUtf8(byte[] bytes, int offset, int length){
+        int end = offset + length;
+        int i = offset;
+        while (i < end){
+            int b1 = bytes[i];
+            if(b1 >= 0){
+                i++;
+                continue;
+            }
+            b1 = b1 & 0xff;
+            if(b1 < 0xc2){
+                return false;
+            }
+            if(b1 < 0xe0){
+                if(i + 1 >= end || isNotContinuation(bytes[i + 1])){
+                    return false;
+                }
+                i += 2;
+                continue;
+            }
+            if(b1 < 0xf0){
+                if(i + 2 >= end){
+                    return false;
+                }
+                int b2 = bytes[i + 1] & 0xff;
+                if(isNotContinuation(b2) || isNotContinuation(bytes[i + 2])){
+                    return false;
+                }
+                if((b1 == 0xe0 && b2 < 0xa0) || (b1 == 0xed && b2 >= 0xa0)){
+                    return false;
+                }
+                i += 3;
+                continue;
+            }
+            if(b1 < 0xf5){
+                if(i + 3 >= end){
+                    return false;
+                }
+                int b2 = bytes[i + 1] & 0xff;
+                if(isNotContinuation(b2) || isNotContinuation(bytes[i + 2])
+                        || isNotContinuation(bytes[i + 3])){
+                    return false;
+                }
+                if((b1 == 0xf0 && b2 < 0x90) || (b1 == 0xf4 && b2 >= 0x90)){
+                    return false;
+                }
+                i += 4;
+                continue;
+            }
+            return false;
+        }
+        return true;
+    }
+    private static boolean isNotContinuation(int b){
+        return (b & 0xc0) != 0x80;
+    }
+}
@@ -42,6 +42,7 @@ import org.xmlpull.v1.XmlSerializer;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 public class SpecTypePair extends BlockContainer<Block>
@@ -49,6 +50,9 @@ public class SpecTypePair extends BlockContainer<Block>
     private final Block[] mChildes;
     private final SpecBlock mSpecBlock;
     private final TypeBlockArray mTypeBlockArray;
+    private final Object mNameIndexLock = new Object();
+    private volatile Map<String, Integer> mNameIndex;
+    private boolean mRefreshedAhead;
 
     public SpecTypePair(SpecBlock specBlock, TypeBlockArray typeBlockArray){
         this.mSpecBlock = specBlock;
@@ -107,17 +111,96 @@ public class SpecTypePair extends BlockContainer<Block>
         return new ResourceEntry(packageBlock, resourceId);
     }
     public ResourceEntry getResource(String name){
+        int entryId = resolveEntryId(name);
+        if(entryId < 0){
+            return null;
+        }
+        return getResource(entryId);
+    }
+    public int resolveResourceId(String name){
+        int entryId = resolveEntryId(name);
+        if(entryId < 0){
+            return 0;
+        }
         PackageBlock packageBlock = getPackageBlock();
         if(packageBlock == null){
-            return null;
+            return 0;
+        }
+        return (packageBlock.getId() << 24) | (getId() << 16) | entryId;
+    }
+    /**
+     * Returns entry id of the given name or -1 if not found.
+     * Names are looked up on a hash index built on first use, hits are validated against
+     * the current entry name and misses fall back to spec string pool search, thus renamed,
+     * added or removed entries never return a wrong id. Safe to call from multiple threads.
+     * */
+    public int resolveEntryId(String name){
+        if(name == null){
+            return -1;
+        }
+        Map<String, Integer> nameIndex = getNameIndex();
+        Integer id = nameIndex.get(name);
+        if(id != null && isEntryName(id, name)){
+            return id;
+        }
+        int entryId = searchEntryId(name);
+        if(entryId >= 0){
+            nameIndex.put(name, entryId);
+        }
+        return entryId;
+    }
+    public void clearNameIndex(){
+        synchronized (mNameIndexLock){
+            mNameIndex = null;
+        }
+    }
+    private boolean isEntryName(int entryId, String name){
+        Entry entry = getAnyEntry((short) entryId);
+        return entry != null && name.equals(entry.getName());
+    }
+    private int searchEntryId(String name){
+        PackageBlock packageBlock = getPackageBlock();
+        if(packageBlock == null){
+            return -1;
         }
         SpecStringPool specStringPool = packageBlock.getSpecStringPool();
-        int resourceId = specStringPool
-                .resolveResourceId(this, name);
+        int resourceId = specStringPool.resolveResourceId(this, name);
         if(resourceId == 0){
-            return null;
+            return -1;
         }
-        return new ResourceEntry(packageBlock, resourceId);
+        return resourceId & 0xffff;
+    }
+    private Map<String, Integer> getNameIndex(){
+        Map<String, Integer> nameIndex = this.mNameIndex;
+        if(nameIndex == null){
+            synchronized (mNameIndexLock){
+                nameIndex = this.mNameIndex;
+                if(nameIndex == null){
+                    nameIndex = buildNameIndex();
+                    this.mNameIndex = nameIndex;
+                }
+            }
+        }
+        return nameIndex;
+    }
+    private Map<String, Integer> buildNameIndex(){
+        Map<String, Integer> nameIndex = new ConcurrentHashMap<>();
+        for(TypeBlock typeBlock : this){
+            Iterator<Entry> iterator = typeBlock.getEntryArray().iterator(true);
+            while (iterator.hasNext()){
+                Entry entry = iterator.next();
+                String name = entry.getName();
+                if(name == null){
+                    continue;
+                }
+                int entryId = entry.getId();
+                Integer exist = nameIndex.get(name);
+                if(exist == null || entryId < exist){
+                    nameIndex.put(name, entryId);
+                }
+            }
+        }
+        return nameIndex;
     }
     public Iterator<ResourceEntry> getResources(){
         final PackageBlock packageBlock = getPackageBlock();
@@ -176,8 +259,10 @@ public class SpecTypePair extends BlockContainer<Block>
         for(TypeBlock typeBlock : this){
             typeBlock.linkSpecStringsInternal(specStringPool);
         }
+        clearNameIndex();
     }
     public void destroy(){
+        clearNameIndex();
         getSpecBlock().destroy();
         getTypeBlockArray().destroy();
     }
@@ -331,6 +416,29 @@ public class SpecTypePair extends BlockContainer<Block>
     public Iterator<TypeBlock> iterator() {
         return getTypeBlockArray().iterator();
     }
+    /**
+     * Refreshes now and lets the next refresh of parent skip childes of this,
+     * independent blocks can then be refreshed concurrently before the sequential layout
+     * */
+    public void refreshAhead(){
+        mRefreshedAhead = false;
+        refresh();
+        mRefreshedAhead = true;
+    }
+    /**
+     * Drops a pending refreshAhead(), the next refresh of parent refreshes childes of this again
+     * */
+    public void cancelRefreshAhead(){
+        mRefreshedAhead = false;
+    }
+    @Override
+    protected void refreshChildes(){
+        if(mRefreshedAhead){
+            mRefreshedAhead = false;
+            return;
+        }
+        super.refreshChildes();
+    }
     @Override
     protected void onRefreshed() {
 
@@ -346,6 +454,7 @@ public class SpecTypePair extends BlockContainer<Block>
 
     @Override
     public void onReadBytes(BlockReader reader) throws IOException {
+        clearNameIndex();
         HeaderBlock headerBlock=reader.readHeaderBlock();
         if(headerBlock==null){
             return;
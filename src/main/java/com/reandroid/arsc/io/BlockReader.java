@@ -40,6 +40,9 @@ public class BlockReader extends InputStream {
     public BlockReader(byte[] buffer) {
         this(buffer, 0, buffer.length);
     }
+    protected BlockReader(int length) {
+        this(null, 0, length);
+    }
     public BlockReader(InputStream in) throws IOException {
         this(loadBuffer(in));
     }
@@ -53,18 +56,43 @@ public class BlockReader extends InputStream {
         return 0x0000ffff & readShort();
     }
     public short readShort() throws IOException {
-        int pos = getPosition();
-        byte[] bts = new byte[2];
-        readFully(bts);
-        seek(pos);
-        return toShort(bts);
+        int pos = checkReadable();
+        return (short) (byteAt(pos) | peekByte(pos + 1) << 8);
     }
     public int readInteger() throws IOException {
-        int pos = getPosition();
-        byte[] bytes = new byte[4];
-        readFully(bytes);
-        seek(pos);
-        return toInt(bytes);
+        int pos = checkReadable();
+        return byteAt(pos) |
+                peekByte(pos + 1) << 8 |
+                peekByte(pos + 2) << 16 |
+                peekByte(pos + 3) << 24;
+    }
+    private int checkReadable() throws IOException {
+        if(mIsClosed){
+            throw new IOException("Stream is closed");
+        }
+        int pos = mPosition;
+        if(pos >= mLength){
+            throw new EOFException("Finished reading: " + pos);
+        }
+        return pos;
+    }
+    private int peekByte(int position){
+        if(position >= mLength){
+            return 0;
+        }
+        return byteAt(position);
+    }
+    /**
+     * Unsigned byte at the given position relative to start of this reader
+     * */
+    protected int byteAt(int position){
+        return BUFFER[mStart + position] & 0xff;
+    }
+    protected void copyBytes(int position, byte[] bytes, int offset, int length){
+        System.arraycopy(BUFFER, mStart + position, bytes, offset, length);
+    }
+    protected BlockReader newReader(int start, int length){
+        return new BlockReader(BUFFER, mStart + start, length);
     }
     /**
      * Use SpecHeader#read(BlockReader)
@@ -83,29 +111,19 @@ public class BlockReader extends InputStream {
     public InfoHeader readHeaderBlock() throws IOException {
         return InfoHeader.read(this);
     }
-    private int toInt(byte[] bytes){
-        return bytes[0] & 0xff |
-                (bytes[1] & 0xff) << 8 |
-                (bytes[2] & 0xff) << 16 |
-                (bytes[3] & 0xff) << 24;
-    }
-    private short toShort(byte[] bytes){
-        return (short) (bytes[0] & 0xff |
-                (bytes[1] & 0xff) << 8);
-    }
     public byte[] getBuffer(){
         return BUFFER;
     }
     public byte[] getBytes(){
         int len = length();
-        if(this.BUFFER.length == len){
+        if(this.BUFFER != null && this.BUFFER.length == len){
             return BUFFER;
         }
         byte[] bytes = new byte[len];
         if(len==0){
             return bytes;
         }
-        System.arraycopy(BUFFER, mStart, bytes, 0, len);
+        copyBytes(0, bytes, 0, len);
         return bytes;
     }
     public BlockReader create(int len){
@@ -116,8 +134,7 @@ public class BlockReader extends InputStream {
         if(len < 0 || max > this.mLength){
             len = this.mLength - start;
         }
-        start = start + this.mStart;
-        return new BlockReader(BUFFER, start, len);
+        return newReader(start, len);
     }
     public boolean isAvailable(){
         if(mIsClosed){
@@ -184,17 +201,13 @@ public class BlockReader extends InputStream {
             length = bytes.length;
         }
         synchronized (mLock){
-            int actualPosition = mStart + mPosition;
-            int i;
-            for(i = 0; i < length; i++){
-                bytes[start + i] = BUFFER[actualPosition + i];
-                mPosition ++;
-                if(mPosition >= mLength){
-                    i++;
-                    break;
-                }
+            int available = mLength - mPosition;
+            if(length > available){
+                length = available;
             }
-            return i;
+            copyBytes(mPosition, bytes, start, length);
+            mPosition += length;
+            return length;
         }
     }
     public int getPosition(){
@@ -213,8 +226,7 @@ public class BlockReader extends InputStream {
             throw new EOFException("Finished reading: "+i);
         }
         synchronized (mLock){
-            int actPos = mStart + i;
-            int val = BUFFER[actPos] & 0xff;
+            int val = byteAt(i);
             mPosition ++;
             return val;
         }
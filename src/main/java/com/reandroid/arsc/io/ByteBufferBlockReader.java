@@ -0,0 +1,94 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * BlockReader backed by heap, direct or memory mapped ByteBuffer without
+ * copying the whole input into an array.
+ * */
+public class ByteBufferBlockReader extends BlockReader {
+
+    private final ByteBuffer byteBuffer;
+    private final ByteBuffer copyView;
+
+    public ByteBufferBlockReader(ByteBuffer byteBuffer) {
+        super(byteBuffer.remaining());
+        ByteBuffer buffer = byteBuffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.byteBuffer = buffer;
+        this.copyView = buffer.duplicate();
+    }
+
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    @Override
+    public byte[] getBuffer() {
+        return getBytes();
+    }
+    @Override
+    protected int byteAt(int position) {
+        return byteBuffer.get(position) & 0xff;
+    }
+    @Override
+    public short readShort() throws IOException {
+        int position = getPosition();
+        if(available() < 2 || !isAvailable()){
+            return super.readShort();
+        }
+        return byteBuffer.getShort(position);
+    }
+    @Override
+    public int readInteger() throws IOException {
+        int position = getPosition();
+        if(available() < 4 || !isAvailable()){
+            return super.readInteger();
+        }
+        return byteBuffer.getInt(position);
+    }
+    @Override
+    protected void copyBytes(int position, byte[] bytes, int offset, int length) {
+        ByteBuffer view = this.copyView;
+        synchronized (view){
+            view.position(position);
+            view.get(bytes, offset, length);
+        }
+    }
+    @Override
+    protected BlockReader newReader(int start, int length) {
+        ByteBuffer view = byteBuffer.duplicate();
+        view.position(start);
+        view.limit(start + length);
+        return new ByteBufferBlockReader(view);
+    }
+
+    public static ByteBufferBlockReader map(File file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            if(size > Integer.MAX_VALUE){
+                throw new IOException("File too large to map: " + file);
+            }
+            return new ByteBufferBlockReader(
+                    fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+}
@@ -23,12 +23,17 @@ import java.nio.charset.StandardCharsets;
 public abstract class StringBlock extends BlockItem implements StringReference {
 
     private String mCache;
+    private volatile boolean mDecodePending;
 
     public StringBlock() {
         super(0);
         mCache = StringsUtil.EMPTY;
     }
     public String get(){
+        if(mDecodePending){
+            mCache = decodeString(getBytesInternal());
+            mDecodePending = false;
+        }
         return mCache;
     }
     public void set(String text){
@@ -38,7 +43,7 @@ public abstract class StringBlock extends BlockItem implements StringReference {
         if(text == null || text.length() == 0){
             text = StringsUtil.EMPTY;
         }
-        String old = this.mCache;
+        String old = get();
         boolean firstTime = countBytes() == 0;
         if(firstTime) {
             old = null;
@@ -46,6 +51,7 @@ public abstract class StringBlock extends BlockItem implements StringReference {
             return;
         }
         this.mCache = text;
+        this.mDecodePending = false;
         byte[] bytes = encodeString(text);
         setBytesInternal(bytes, false);
         if(notify){
@@ -53,7 +59,18 @@ public abstract class StringBlock extends BlockItem implements StringReference {
         }
     }
     protected void onBytesChanged(){
-        mCache = decodeString(getBytesInternal());
+        if(isLazyDecode()){
+            mDecodePending = true;
+        }else {
+            mCache = decodeString(getBytesInternal());
+            mDecodePending = false;
+        }
+    }
+    /**
+     * When true, bytes are decoded on first call of get() instead of on every bytes change
+     * */
+    protected boolean isLazyDecode(){
+        return false;
     }
     protected void onStringChanged(String old, String text){
     }
@@ -71,5 +88,9 @@ public abstract class StringBlock extends BlockItem implements StringReference {
         return get();
     }
 
+    /**
+     * Not thread safe, use com.reandroid.arsc.coder.StringCodec
+     * */
+    @Deprecated
     public static final CharsetDecoder UTF8_DECODER = StandardCharsets.UTF_8.newDecoder();
 }
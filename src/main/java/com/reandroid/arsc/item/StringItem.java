@@ -17,7 +17,7 @@ package com.reandroid.arsc.item;
 
 import com.reandroid.arsc.array.StringArray;
 import com.reandroid.arsc.base.Block;
-import com.reandroid.arsc.coder.ThreeByteCharsetDecoder;
+import com.reandroid.arsc.coder.StringCodec;
 import com.reandroid.arsc.coder.XmlSanitizer;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.pool.StringPool;
@@ -27,32 +27,29 @@ import com.reandroid.utils.CompareUtil;
 import com.reandroid.utils.ObjectsUtil;
 import com.reandroid.utils.collection.ComputeIterator;
 import com.reandroid.utils.collection.EmptyIterator;
+import com.reandroid.utils.collection.EmptyList;
 import com.reandroid.utils.collection.FilterIterator;
 import com.reandroid.xml.StyleDocument;
 import org.xmlpull.v1.XmlSerializer;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.CharacterCodingException;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.StandardCharsets;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Predicate;
 
 public class StringItem extends StringBlock implements JSONConvert<JSONObject>, Comparable<StringItem> {
 
     private boolean mUtf8;
-    private final Set<ReferenceItem> mReferencedList;
+    /**
+     * Most strings have zero or one reference, thus instead of a set per string this holds
+     * null, a single ReferenceItem, a null-padded ReferenceItem[] up to SMALL_REFERENCES,
+     * or a HashSet for heavily referenced strings
+     * */
+    private Object mReferences;
     private StyleItem mStyleItem;
 
     public StringItem(boolean utf8) {
         super();
         this.mUtf8 = utf8;
-        this.mReferencedList = new HashSet<>();
     }
 
     public StyleDocument getStyleDocument() {
@@ -82,24 +79,105 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
 
     }
 
+    @SuppressWarnings("unchecked")
     public boolean removeReference(ReferenceItem ref){
-        return mReferencedList.remove(ref);
+        Object references = this.mReferences;
+        if(references == null || ref == null){
+            return false;
+        }
+        if(ref.equals(references)){
+            this.mReferences = null;
+            return true;
+        }
+        if(references instanceof ReferenceItem[]){
+            ReferenceItem[] array = (ReferenceItem[]) references;
+            int length = array.length;
+            for(int i = 0; i < length; i++){
+                if(ref.equals(array[i])){
+                    System.arraycopy(array, i + 1, array, i, length - i - 1);
+                    array[length - 1] = null;
+                    if(array[1] == null){
+                        this.mReferences = array[0];
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+        if(references instanceof Set){
+            Set<ReferenceItem> set = (Set<ReferenceItem>) references;
+            boolean removed = set.remove(ref);
+            if(set.isEmpty()){
+                this.mReferences = null;
+            }
+            return removed;
+        }
+        return false;
     }
     public void removeAllReference(){
-        mReferencedList.clear();
+        this.mReferences = null;
     }
+    @SuppressWarnings("unchecked")
     public boolean hasReference(){
         ensureStringLinkUnlocked();
-        if(mReferencedList.size() == 0) {
+        Object references = this.mReferences;
+        if(references == null) {
             return false;
         }
-        return FilterIterator.of(mReferencedList.iterator(),
-                referenceItem -> !(referenceItem instanceof StyleItem.StyleIndexReference))
+        if(references instanceof ReferenceItem){
+            return !(references instanceof StyleItem.StyleIndexReference);
+        }
+        Iterator<ReferenceItem> iterator;
+        if(references instanceof ReferenceItem[]){
+            iterator = Arrays.asList((ReferenceItem[]) references).iterator();
+        }else {
+            iterator = ((Set<ReferenceItem>) references).iterator();
+        }
+        return FilterIterator.of(iterator,
+                referenceItem -> referenceItem != null &&
+                        !(referenceItem instanceof StyleItem.StyleIndexReference))
                 .hasNext();
     }
+    /**
+     * Returns an unmodifiable snapshot, later reference changes are not reflected
+     * */
+    @SuppressWarnings("unchecked")
     public Collection<ReferenceItem> getReferencedList(){
         ensureStringLinkUnlocked();
-        return mReferencedList;
+        Object references = this.mReferences;
+        if(references == null){
+            return EmptyList.of();
+        }
+        if(references instanceof ReferenceItem){
+            return Collections.singletonList((ReferenceItem) references);
+        }
+        ReferenceItem[] array;
+        if(references instanceof ReferenceItem[]){
+            array = (ReferenceItem[]) references;
+            array = Arrays.copyOf(array, countReferences(array));
+        }else {
+            array = ((Set<ReferenceItem>) references).toArray(new ReferenceItem[0]);
+        }
+        return Collections.unmodifiableList(Arrays.asList(array));
+    }
+    public int getReferenceCount(){
+        ensureStringLinkUnlocked();
+        Object references = this.mReferences;
+        if(references == null){
+            return 0;
+        }
+        if(references instanceof ReferenceItem){
+            return 1;
+        }
+        if(references instanceof ReferenceItem[]){
+            return countReferences((ReferenceItem[]) references);
+        }
+        return ((Set<?>) references).size();
+    }
+    @Override
+    protected boolean isLazyDecode(){
+        StringPool<?> stringPool = getParentInstance(StringPool.class);
+        return stringPool != null && stringPool.isLazyDecode();
     }
     void ensureStringLinkUnlocked(){
         StringPool<?> stringPool = getParentInstance(StringPool.class);
@@ -107,32 +185,85 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
             stringPool.ensureStringLinkUnlockedInternal();
         }
     }
+    @SuppressWarnings("unchecked")
     public void addReference(ReferenceItem ref){
-        if(ref!=null){
-            mReferencedList.add(ref);
+        if(ref == null){
+            return;
+        }
+        Object references = this.mReferences;
+        if(references == null){
+            this.mReferences = ref;
+            return;
+        }
+        if(ref.equals(references)){
+            return;
+        }
+        if(references instanceof ReferenceItem){
+            ReferenceItem[] array = new ReferenceItem[4];
+            array[0] = (ReferenceItem) references;
+            array[1] = ref;
+            this.mReferences = array;
+            return;
         }
+        if(references instanceof ReferenceItem[]){
+            ReferenceItem[] array = (ReferenceItem[]) references;
+            int count = countReferences(array);
+            for(int i = 0; i < count; i++){
+                if(ref.equals(array[i])){
+                    return;
+                }
+            }
+            if(count < array.length){
+                array[count] = ref;
+                return;
+            }
+            if(count < SMALL_REFERENCES){
+                array = Arrays.copyOf(array, count * 2);
+                array[count] = ref;
+                this.mReferences = array;
+                return;
+            }
+            Set<ReferenceItem> set = new HashSet<>(Arrays.asList(array));
+            set.add(ref);
+            this.mReferences = set;
+            return;
+        }
+        ((Set<ReferenceItem>) references).add(ref);
     }
     public void addReferenceIfAbsent(ReferenceItem ref){
-        if(ref!=null){
-            mReferencedList.add(ref);
-        }
+        addReference(ref);
     }
     public void addReference(Collection<ReferenceItem> refList){
         if(refList == null){
             return;
         }
         for(ReferenceItem ref:refList){
-            if(ref != null){
-                this.mReferencedList.add(ref);
-            }
+            addReference(ref);
         }
     }
     private void reUpdateReferences(int newIndex){
-        ReferenceItem[] referenceItems = mReferencedList.toArray(new ReferenceItem[0]);
+        Object references = this.mReferences;
+        if(references == null){
+            return;
+        }
+        if(references instanceof ReferenceItem){
+            ((ReferenceItem) references).set(newIndex);
+            return;
+        }
+        ReferenceItem[] referenceItems = getReferencedList().toArray(new ReferenceItem[0]);
         for(ReferenceItem ref:referenceItems){
             ref.set(newIndex);
         }
     }
+    private static int countReferences(ReferenceItem[] array){
+        int length = array.length;
+        for(int i = 0; i < length; i++){
+            if(array[i] == null){
+                return i;
+            }
+        }
+        return length;
+    }
     public void onRemoved(){
         clearStyle();
         setParent(null);
@@ -296,34 +427,10 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         int[] offLen;
         if(isUtf8){
             offLen=decodeUtf8StringByteLength(allStringBytes);
-        }else {
-            offLen=decodeUtf16StringByteLength(allStringBytes);
-        }
-        CharsetDecoder charsetDecoder;
-        if(isUtf8){
-            charsetDecoder=UTF8_DECODER;
-        }else {
-            charsetDecoder=UTF16LE_DECODER;
-        }
-        try {
-            ByteBuffer buf=ByteBuffer.wrap(allStringBytes, offLen[0], offLen[1]);
-            CharBuffer charBuffer=charsetDecoder.decode(buf);
-            return charBuffer.toString();
-        } catch (CharacterCodingException ex) {
-            if(isUtf8){
-                return tryThreeByteDecoder(allStringBytes, offLen[0], offLen[1]);
-            }
-            return new String(allStringBytes, offLen[0], offLen[1], StandardCharsets.UTF_16LE);
-        }
-    }
-    private String tryThreeByteDecoder(byte[] bytes, int offset, int length){
-        try {
-            ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, offset, length);
-            CharBuffer charBuffer = DECODER_3B.decode(byteBuffer);
-            return charBuffer.toString();
-        } catch (CharacterCodingException e) {
-            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+            return StringCodec.decodeUtf8(allStringBytes, offLen[0], offLen[1]);
         }
+        offLen=decodeUtf16StringByteLength(allStringBytes);
+        return StringCodec.decodeUtf16(allStringBytes, offLen[0], offLen[1]);
     }
     public boolean hasStyle(){
         StyleItem styleItem=getStyle();
@@ -449,7 +556,7 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         }
         StringPool<?> stringPool = getParentInstance(StringPool.class);
         if(stringPool != null && !stringPool.isStringLinkLocked()){
-            return getIndex() + ": USED BY=" + mReferencedList.size() + "{" + xml + "}";
+            return getIndex() + ": USED BY=" + getReferenceCount() + "{" + xml + "}";
         }
         return getIndex() + ":" + xml;
     }
@@ -508,7 +615,7 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         byte[] bts;
         byte[] lenBytes=new byte[2];
         if(str!=null){
-            bts=str.getBytes(StandardCharsets.UTF_8);
+            bts=StringCodec.encodeUtf8(str);
             int strLen=bts.length;
             if((strLen & 0xff80)!=0){
                 lenBytes=new byte[4];
@@ -556,7 +663,7 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         return addBytes(lenBytes, bts, new byte[2]);
     }
     static byte[] getUtf16Bytes(String str){
-        return str.getBytes(StandardCharsets.UTF_16LE);
+        return StringCodec.encodeUtf16(str);
     }
 
     private static byte[] addBytes(byte[] bts1, byte[] bts2, byte[] bts3){
@@ -589,9 +696,9 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         return result;
     }
 
-    private static final CharsetDecoder UTF16LE_DECODER = StandardCharsets.UTF_16LE.newDecoder();
-    private static final CharsetDecoder DECODER_3B = ThreeByteCharsetDecoder.INSTANCE;
 
     public static final String NAME_string = ObjectsUtil.of("string");
     public static final String NAME_style = ObjectsUtil.of("style");
+
+    private static final int SMALL_REFERENCES = 8;
 }
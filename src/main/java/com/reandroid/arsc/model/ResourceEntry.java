@@ -195,6 +195,25 @@ public class ResourceEntry implements Iterable<Entry>{
         }
         return result;
     }
+    /**
+     * Returns the entry the platform would select on a device of the given config,
+     * see ResourceResolver for repeated lookups of the same device
+     * */
+    public Entry getBestMatch(ResConfig device){
+        Entry result = null;
+        ResConfig best = null;
+        for(Entry entry : this){
+            ResConfig resConfig = entry.getResConfig();
+            if(!resConfig.match(device)){
+                continue;
+            }
+            if(best == null || resConfig.isBetterThan(best, device)){
+                result = entry;
+                best = resConfig;
+            }
+        }
+        return result;
+    }
     public Entry get(){
         Entry result = null;
         for(Entry entry : this){
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.value.Entry;
+
+import java.util.Arrays;
+
+/**
+ * Resolved resource id -> ResourceEntry table indexed directly by package, type and entry id.
+ * Each slot keeps the Entry it was resolved from, a hit is only returned while that entry
+ * is still attached to the same package under the same id. Misses are never cached, thus
+ * added resources are always found by the caller's slow path.
+ * Concurrent use is racy but benign: a lost or mismatched write only costs a new lookup.
+ * */
+public class ResourceIdIndex {
+
+    private final ResourceEntry[][][] resources;
+    private final Entry[][][] entries;
+
+    public ResourceIdIndex(){
+        this.resources = new ResourceEntry[256][][];
+        this.entries = new Entry[256][][];
+    }
+
+    public ResourceEntry get(int resourceId){
+        int packageId = (resourceId >>> 24);
+        int typeId = (resourceId >> 16) & 0xff;
+        int entryId = resourceId & 0xffff;
+        ResourceEntry[][] packageResources = resources[packageId];
+        Entry[][] packageEntries = entries[packageId];
+        if(packageResources == null || packageEntries == null){
+            return null;
+        }
+        ResourceEntry[] typeResources = packageResources[typeId];
+        Entry[] typeEntries = packageEntries[typeId];
+        if(typeResources == null || typeEntries == null
+                || entryId >= typeResources.length || entryId >= typeEntries.length){
+            return null;
+        }
+        ResourceEntry resourceEntry = typeResources[entryId];
+        if(resourceEntry != null && isValid(resourceEntry, typeEntries[entryId])){
+            return resourceEntry;
+        }
+        return null;
+    }
+    public void put(int resourceId, ResourceEntry resourceEntry, Entry entry){
+        if(resourceEntry == null || entry == null){
+            return;
+        }
+        int packageId = (resourceId >>> 24);
+        int typeId = (resourceId >> 16) & 0xff;
+        int entryId = resourceId & 0xffff;
+        ResourceEntry[][] packageResources = resources[packageId];
+        Entry[][] packageEntries = entries[packageId];
+        if(packageResources == null || packageEntries == null){
+            packageResources = new ResourceEntry[256][];
+            packageEntries = new Entry[256][];
+            resources[packageId] = packageResources;
+            entries[packageId] = packageEntries;
+        }
+        ResourceEntry[] typeResources = packageResources[typeId];
+        Entry[] typeEntries = packageEntries[typeId];
+        if(typeResources == null || typeEntries == null){
+            int length = Math.max(16, entryId + 1);
+            typeResources = new ResourceEntry[length];
+            typeEntries = new Entry[length];
+        }else if(entryId >= typeResources.length || entryId >= typeEntries.length){
+            int length = Math.max(entryId + 1, typeResources.length * 2);
+            typeResources = Arrays.copyOf(typeResources, length);
+            typeEntries = Arrays.copyOf(typeEntries, length);
+        }
+        typeEntries[entryId] = entry;
+        typeResources[entryId] = resourceEntry;
+        packageEntries[typeId] = typeEntries;
+        packageResources[typeId] = typeResources;
+    }
+    public void clear(){
+        Arrays.fill(resources, null);
+        Arrays.fill(entries, null);
+    }
+    private static boolean isValid(ResourceEntry resourceEntry, Entry entry){
+        return entry != null
+                && entry.getPackageBlock() == resourceEntry.getPackageBlock()
+                && entry.getResourceId() == resourceEntry.getResourceId();
+    }
+}
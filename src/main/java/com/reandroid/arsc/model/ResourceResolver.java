@@ -0,0 +1,213 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.chunk.TypeBlock;
+import com.reandroid.arsc.container.SpecTypePair;
+import com.reandroid.arsc.value.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves resources the way the platform does for one device configuration.
+ * Matching type blocks of each type are ordered once (best first) and resolved
+ * entries are memoised by resource id, call clear() after the table is modified.
+ * Not thread safe, use one resolver per device and thread.
+ * */
+public class ResourceResolver {
+
+    private final TableBlock tableBlock;
+    private final ResConfig device;
+    private final Map<SpecTypePair, TypeBlock[]> candidatesMap;
+    private final Map<Integer, Entry> resolvedMap;
+
+    public ResourceResolver(TableBlock tableBlock, ResConfig device){
+        if(tableBlock == null){
+            throw new NullPointerException("Null table block");
+        }
+        if(device == null){
+            throw new NullPointerException("Null device config");
+        }
+        this.tableBlock = tableBlock;
+        this.device = device;
+        this.candidatesMap = new HashMap<>();
+        this.resolvedMap = new HashMap<>();
+    }
+
+    public TableBlock getTableBlock() {
+        return tableBlock;
+    }
+    public ResConfig getDevice() {
+        return device;
+    }
+    /**
+     * Returns the entry the device would select for the resource id, or null if
+     * no config of the resource matches the device
+     * */
+    public Entry resolve(int resourceId){
+        Integer key = resourceId;
+        Entry entry = resolvedMap.get(key);
+        if(entry == null && !resolvedMap.containsKey(key)){
+            entry = select(resourceId);
+            resolvedMap.put(key, entry);
+        }
+        return entry;
+    }
+    /**
+     * Same as resolve(int) but follows reference values until a non-reference entry,
+     * returns null for missing or cyclic references
+     * */
+    public Entry resolveValue(int resourceId){
+        Entry entry = resolve(resourceId);
+        int depth = 0;
+        while (entry != null){
+            int reference = getReference(entry.getResValue());
+            if(reference == 0){
+                return entry;
+            }
+            depth ++;
+            if(depth > MAX_DEPTH){
+                return null;
+            }
+            entry = resolve(reference);
+        }
+        return null;
+    }
+    /**
+     * Searches the style and its parents for the item of attribute id
+     * */
+    public ResValueMap getStyleItem(int styleId, int attributeId){
+        int depth = 0;
+        while (styleId != 0 && depth < MAX_DEPTH){
+            Entry entry = resolveValue(styleId);
+            if(entry == null){
+                return null;
+            }
+            ResTableMapEntry mapEntry = entry.getResTableMapEntry();
+            if(mapEntry == null){
+                return null;
+            }
+            ResValueMap valueMap = mapEntry.getValue().getByName(attributeId);
+            if(valueMap != null){
+                return valueMap;
+            }
+            styleId = mapEntry.getParentId();
+            depth ++;
+        }
+        return null;
+    }
+    /**
+     * Resolves the attribute against a theme, following attribute and reference values.
+     * Returns the final scalar value, or the reference itself if it points to a bag
+     * */
+    public ValueItem resolveAttribute(int themeId, int attributeId){
+        ValueItem valueItem = getStyleItem(themeId, attributeId);
+        int depth = 0;
+        while (valueItem != null && depth < MAX_DEPTH){
+            ValueType valueType = valueItem.getValueType();
+            if(valueType == ValueType.ATTRIBUTE || valueType == ValueType.DYNAMIC_ATTRIBUTE){
+                valueItem = getStyleItem(themeId, valueItem.getData());
+            }else {
+                int reference = getReference(valueItem);
+                if(reference == 0){
+                    return valueItem;
+                }
+                Entry entry = resolveValue(reference);
+                if(entry == null){
+                    return null;
+                }
+                ResValue resValue = entry.getResValue();
+                if(resValue == null){
+                    return valueItem;
+                }
+                valueItem = resValue;
+            }
+            depth ++;
+        }
+        return null;
+    }
+    public void clear(){
+        candidatesMap.clear();
+        resolvedMap.clear();
+    }
+
+    private Entry select(int resourceId){
+        ResourceEntry resourceEntry = tableBlock.getResource(resourceId);
+        if(resourceEntry == null){
+            return null;
+        }
+        // the entry may come from a framework or shared library package of different id
+        int entryResourceId = resourceEntry.getResourceId();
+        PackageBlock packageBlock = resourceEntry.getPackageBlock();
+        SpecTypePair specTypePair = packageBlock.getSpecTypePair((entryResourceId >> 16) & 0xff);
+        if(specTypePair == null){
+            return null;
+        }
+        int entryId = entryResourceId & 0xffff;
+        for(TypeBlock typeBlock : getCandidates(specTypePair)){
+            Entry entry = typeBlock.getEntry(entryId);
+            if(entry != null && !entry.isNull()){
+                return entry;
+            }
+        }
+        return null;
+    }
+    private TypeBlock[] getCandidates(SpecTypePair specTypePair){
+        TypeBlock[] candidates = candidatesMap.get(specTypePair);
+        if(candidates == null){
+            candidates = sortCandidates(specTypePair);
+            candidatesMap.put(specTypePair, candidates);
+        }
+        return candidates;
+    }
+    private TypeBlock[] sortCandidates(SpecTypePair specTypePair){
+        List<TypeBlock> results = new ArrayList<>();
+        Iterator<TypeBlock> iterator = specTypePair.getTypeBlocks();
+        while (iterator.hasNext()){
+            TypeBlock typeBlock = iterator.next();
+            ResConfig resConfig = typeBlock.getResConfig();
+            if(!resConfig.match(device)){
+                continue;
+            }
+            // insertion keeps table order among equally good configs, same as the platform
+            int size = results.size();
+            int index = 0;
+            while (index < size && !resConfig.isBetterThan(results.get(index).getResConfig(), device)){
+                index ++;
+            }
+            results.add(index, typeBlock);
+        }
+        return results.toArray(new TypeBlock[0]);
+    }
+    private static int getReference(ValueItem valueItem){
+        if(valueItem == null){
+            return 0;
+        }
+        ValueType valueType = valueItem.getValueType();
+        if(valueType == ValueType.REFERENCE || valueType == ValueType.DYNAMIC_REFERENCE){
+            return valueItem.getData();
+        }
+        return 0;
+    }
+
+    private static final int MAX_DEPTH = 20;
+}
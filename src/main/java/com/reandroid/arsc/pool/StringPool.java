@@ -52,7 +52,10 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     private final StyleArray mArrayStyles;
 
     private final MultiMap<String, T> poolMap;
+    private volatile boolean poolMapLoaded;
     private boolean stringLinkLocked;
+    private boolean lazyDecode;
+    private boolean mRefreshedAhead;
 
     StringPool(boolean is_utf8, boolean stringLinkLocked){
         super(new StringPoolHeader(), 4);
@@ -113,7 +116,10 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     public void clear(){
         getStyleArray().clear();
         getStringsArray().clear();
-        poolMap.clear();
+        synchronized (mLock){
+            poolMap.clear();
+            poolMapLoaded = false;
+        }
     }
     /**
      * Use clear()
@@ -126,6 +132,16 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
         ensureStringLinkUnlockedInternal();
         getStringsArray().sort();
     }
+    public boolean isLazyDecode(){
+        return lazyDecode;
+    }
+    /**
+     * When true, strings are decoded on first access and the string lookup map
+     * is built on first lookup instead of on load. Must be set before reading bytes.
+     * */
+    public void setLazyDecode(boolean lazyDecode){
+        this.lazyDecode = lazyDecode;
+    }
     public boolean isStringLinkLocked(){
         return stringLinkLocked;
     }
@@ -136,7 +152,9 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
             }
             stringLinkLocked = false;
             linkStrings();
-            reloadPoolMap();
+            if(!isLazyDecode()) {
+                reloadPoolMap();
+            }
         }
     }
     void linkStrings(){
@@ -174,15 +192,24 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
             createNewString(str);
         }
     }
+    private void ensurePoolMap() {
+        if(!poolMapLoaded) {
+            synchronized (mLock) {
+                reloadPoolMap();
+            }
+        }
+    }
     private void reloadPoolMap() {
         if(poolMap.size() == 0) {
             poolMap.clear();
             poolMap.setInitialSize(size());
             poolMap.putAll(StringItem::getXml, iterator());
         }
+        poolMapLoaded = true;
     }
     public void compressDuplicates(){
         ensureStringLinkUnlockedInternal();
+        ensurePoolMap();
         poolMap.findDuplicates(CompareUtil.getComparableComparator(), list -> {
             T first = list.get(0);
             for(int i = 1; i < list.size(); i++) {
@@ -218,15 +245,16 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
         return null;
     }
     public boolean contains(String str){
+        ensurePoolMap();
         return poolMap.containsKey(str);
     }
     public void onStringChanged(String old, T stringItem) {
-        if(!stringLinkLocked){
+        if(!stringLinkLocked && poolMapLoaded){
             poolMap.updateKey(old, stringItem.getXml(), stringItem);
         }
     }
     public void onStringRemoved(T stringItem) {
-        if(!stringLinkLocked) {
+        if(!stringLinkLocked && poolMapLoaded) {
             poolMap.remove(stringItem.getXml(), stringItem);
         }
     }
@@ -243,10 +271,12 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     }
     public final Iterator<T> getAll(String str){
         ensureStringLinkUnlockedInternal();
+        ensurePoolMap();
         return poolMap.getAll(str);
     }
     public final T get(String str, Predicate<? super T> predicate){
         ensureStringLinkUnlockedInternal();
+        ensurePoolMap();
         return poolMap.get(str, predicate);
     }
     public final T getString(String str){
@@ -342,15 +372,48 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     }
 
     abstract StringArray<T> newInstance(OffsetArray offsets, IntegerItem itemCount, IntegerItem itemStart, boolean is_utf8);
+    /**
+     * Refreshes now and lets the next refresh of parent skip childes of this,
+     * independent blocks can then be refreshed concurrently before the sequential layout
+     * */
+    public void refreshAhead(){
+        mRefreshedAhead = false;
+        refresh();
+        mRefreshedAhead = true;
+    }
+    /**
+     * Drops a pending refreshAhead(), the next refresh of parent refreshes childes of this again
+     * */
+    public void cancelRefreshAhead(){
+        mRefreshedAhead = false;
+    }
+    @Override
+    protected void refreshChildes(){
+        if(mRefreshedAhead){
+            mRefreshedAhead = false;
+            return;
+        }
+        super.refreshChildes();
+    }
     @Override
     protected void onChunkRefreshed() {
         mArrayStrings.refreshCountAndStart();
         mArrayStyles.refreshCountAndStart();
     }
     @Override
+    public void onReadBytes(BlockReader reader) throws IOException {
+        synchronized (mLock){
+            poolMap.clear();
+            poolMapLoaded = false;
+        }
+        super.onReadBytes(reader);
+    }
+    @Override
     public void onChunkLoaded() {
         linkStylesInternal();
-        reloadPoolMap();
+        if(!isLazyDecode()) {
+            reloadPoolMap();
+        }
     }
 
     @Override
@@ -386,6 +449,7 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     }
 
     boolean containsInternal(T item) {
+        ensurePoolMap();
         return poolMap.containsValue(item.getXml(),
                 stringItem -> stringItem.compareTo(item) == 0);
     }
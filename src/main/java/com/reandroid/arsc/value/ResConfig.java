@@ -61,6 +61,358 @@ public class ResConfig extends ResConfigBase implements JSONConvert<JSONObject>,
         }
         return true;
     }
+    /**
+     * Platform rule of ResTable_config::match, returns true if resources of this config
+     * can be used on a device described by the given config.
+     * Regions are not compared here, a different region only ranks lower on isBetterThan
+     * */
+    public boolean match(ResConfig device){
+        if(device == null){
+            return isDefault();
+        }
+        int screenLayout = getScreenLayout();
+        int deviceScreenLayout = device.getScreenLayout();
+        int uiMode = getUiMode();
+        int deviceUiMode = device.getUiMode();
+        int colorMode = getColorMode();
+        int deviceColorMode = device.getColorMode();
+        int inputFlags = getInputFlagsValue();
+        int deviceInputFlags = device.getInputFlagsValue();
+        return matchExact(getMcc(), device.getMcc())
+                && matchExact(getMnc(), device.getMnc())
+                && matchLocale(device)
+                && matchExact(getGenderValue() & Gender.MASK, device.getGenderValue() & Gender.MASK)
+                && matchExact(screenLayout & ScreenLayoutDir.MASK, deviceScreenLayout & ScreenLayoutDir.MASK)
+                && matchAtMost(screenLayout & ScreenLayoutSize.MASK, deviceScreenLayout & ScreenLayoutSize.MASK)
+                && matchExact(screenLayout & ScreenLayoutLong.MASK, deviceScreenLayout & ScreenLayoutLong.MASK)
+                && matchExact(uiMode & UiModeType.MASK, deviceUiMode & UiModeType.MASK)
+                && matchExact(uiMode & UiModeNight.MASK, deviceUiMode & UiModeNight.MASK)
+                && matchAtMost(getSmallestScreenWidthDp(), device.getSmallestScreenWidthDp())
+                && matchAtMost(getScreenWidthDp(), device.getScreenWidthDp())
+                && matchAtMost(getScreenHeightDp(), device.getScreenHeightDp())
+                && matchExact(getScreenLayout2() & ScreenLayoutRound.MASK,
+                        device.getScreenLayout2() & ScreenLayoutRound.MASK)
+                && matchExact(colorMode & ColorModeWide.MASK, deviceColorMode & ColorModeWide.MASK)
+                && matchExact(colorMode & ColorModeHdr.MASK, deviceColorMode & ColorModeHdr.MASK)
+                && matchExact(getOrientationValue(), device.getOrientationValue())
+                && matchExact(getTouchscreenValue(), device.getTouchscreenValue())
+                && matchKeysHidden(inputFlags & InputFlagsKeysHidden.MASK,
+                        deviceInputFlags & InputFlagsKeysHidden.MASK)
+                && matchExact(inputFlags & InputFlagsNavHidden.MASK, deviceInputFlags & InputFlagsNavHidden.MASK)
+                && matchExact(getKeyboardValue(), device.getKeyboardValue())
+                && matchExact(getNavigationValue(), device.getNavigationValue())
+                && matchAtMost(getScreenWidth(), device.getScreenWidth())
+                && matchAtMost(getScreenHeight(), device.getScreenHeight())
+                && matchAtMost(getSdkVersion(), device.getSdkVersion())
+                && matchExact(getMinorVersion(), device.getMinorVersion());
+    }
+    private boolean matchLocale(ResConfig device){
+        byte[] language = getLanguageBytes();
+        if(!isZero(language) && !equalBytes(language, device.getLanguageBytes())){
+            return false;
+        }
+        byte[] script = getLocaleScriptBytes();
+        byte[] deviceScript = device.getLocaleScriptBytes();
+        return isZero(script) || isZero(deviceScript) || equalBytes(script, deviceScript);
+    }
+    /**
+     * Platform rule of ResTable_config::isBetterThan, both this and the given config
+     * are expected to match the device
+     * */
+    public boolean isBetterThan(ResConfig resConfig, ResConfig device){
+        if(resConfig == null){
+            return true;
+        }
+        if(device == null){
+            device = new ResConfig();
+        }
+        return compareMatch(resConfig, device) > 0;
+    }
+    private int compareMatch(ResConfig other, ResConfig device){
+        int result = preferSpecified(getMcc(), other.getMcc(), device.getMcc());
+        if(result != 0){
+            return result;
+        }
+        result = preferSpecified(getMnc(), other.getMnc(), device.getMnc());
+        if(result != 0){
+            return result;
+        }
+        result = compareLocale(other, device);
+        if(result != 0){
+            return result;
+        }
+        result = preferSpecified(getGenderValue() & Gender.MASK,
+                other.getGenderValue() & Gender.MASK, device.getGenderValue() & Gender.MASK);
+        if(result != 0){
+            return result;
+        }
+        int screenLayout = getScreenLayout();
+        int otherScreenLayout = other.getScreenLayout();
+        int deviceScreenLayout = device.getScreenLayout();
+        int mask = ScreenLayoutDir.MASK;
+        if((screenLayout & mask) != (otherScreenLayout & mask) && (deviceScreenLayout & mask) != 0){
+            return Integer.compare(screenLayout & mask, otherScreenLayout & mask);
+        }
+        result = Integer.compare(getSmallestScreenWidthDp(), other.getSmallestScreenWidthDp());
+        if(result != 0){
+            return result;
+        }
+        result = compareDelta(getScreenWidthDp(), getScreenHeightDp(),
+                other.getScreenWidthDp(), other.getScreenHeightDp(),
+                device.getScreenWidthDp(), device.getScreenHeightDp());
+        if(result != 0){
+            return result;
+        }
+        result = compareScreenSize(screenLayout & ScreenLayoutSize.MASK,
+                otherScreenLayout & ScreenLayoutSize.MASK, deviceScreenLayout & ScreenLayoutSize.MASK);
+        if(result != 0){
+            return result;
+        }
+        mask = ScreenLayoutLong.MASK;
+        result = preferSpecified(screenLayout & mask, otherScreenLayout & mask, deviceScreenLayout & mask);
+        if(result != 0){
+            return result;
+        }
+        mask = ScreenLayoutRound.MASK;
+        result = preferSpecified(getScreenLayout2() & mask,
+                other.getScreenLayout2() & mask, device.getScreenLayout2() & mask);
+        if(result != 0){
+            return result;
+        }
+        mask = ColorModeHdr.MASK;
+        result = preferSpecified(getColorMode() & mask, other.getColorMode() & mask, device.getColorMode() & mask);
+        if(result != 0){
+            return result;
+        }
+        mask = ColorModeWide.MASK;
+        result = preferSpecified(getColorMode() & mask, other.getColorMode() & mask, device.getColorMode() & mask);
+        if(result != 0){
+            return result;
+        }
+        mask = UiModeType.MASK;
+        result = preferSpecified(getUiMode() & mask, other.getUiMode() & mask, device.getUiMode() & mask);
+        if(result != 0){
+            return result;
+        }
+        mask = UiModeNight.MASK;
+        result = preferSpecified(getUiMode() & mask, other.getUiMode() & mask, device.getUiMode() & mask);
+        if(result != 0){
+            return result;
+        }
+        result = preferSpecified(getOrientationValue(), other.getOrientationValue(),
+                device.getOrientationValue());
+        if(result != 0){
+            return result;
+        }
+        result = compareDensity(getDensityValue(), other.getDensityValue(), device.getDensityValue());
+        if(result != 0){
+            return result;
+        }
+        result = preferSpecified(getTouchscreenValue(), other.getTouchscreenValue(),
+                device.getTouchscreenValue());
+        if(result != 0){
+            return result;
+        }
+        mask = InputFlagsKeysHidden.MASK;
+        result = compareKeysHidden(getInputFlagsValue() & mask,
+                other.getInputFlagsValue() & mask, device.getInputFlagsValue() & mask);
+        if(result != 0){
+            return result;
+        }
+        mask = InputFlagsNavHidden.MASK;
+        result = preferSpecified(getInputFlagsValue() & mask,
+                other.getInputFlagsValue() & mask, device.getInputFlagsValue() & mask);
+        if(result != 0){
+            return result;
+        }
+        result = preferSpecified(getKeyboardValue(), other.getKeyboardValue(), device.getKeyboardValue());
+        if(result != 0){
+            return result;
+        }
+        result = preferSpecified(getNavigationValue(), other.getNavigationValue(), device.getNavigationValue());
+        if(result != 0){
+            return result;
+        }
+        result = compareDelta(getScreenWidth(), getScreenHeight(),
+                other.getScreenWidth(), other.getScreenHeight(),
+                device.getScreenWidth(), device.getScreenHeight());
+        if(result != 0){
+            return result;
+        }
+        if(getSdkVersion() != other.getSdkVersion() && device.getSdkVersion() != 0){
+            return Integer.compare(getSdkVersion(), other.getSdkVersion());
+        }
+        return preferSpecified(getMinorVersion(), other.getMinorVersion(), device.getMinorVersion());
+    }
+    private int compareLocale(ResConfig other, ResConfig device){
+        byte[] deviceLanguage = device.getLanguageBytes();
+        byte[] deviceRegion = device.getRegionBytes();
+        if(isZero(deviceLanguage) && isZero(deviceRegion)){
+            return 0;
+        }
+        byte[] language = getLanguageBytes();
+        byte[] otherLanguage = other.getLanguageBytes();
+        if(!equalBytes(language, otherLanguage)){
+            return isZero(language) ? -1 : 1;
+        }
+        int result = Integer.compare(regionScore(getRegionBytes(), deviceRegion),
+                regionScore(other.getRegionBytes(), deviceRegion));
+        if(result != 0){
+            return result;
+        }
+        result = preferEqual(getLocaleScriptBytes(), other.getLocaleScriptBytes(),
+                device.getLocaleScriptBytes());
+        if(result != 0){
+            return result;
+        }
+        return preferEqual(getLocaleVariantBytes(), other.getLocaleVariantBytes(),
+                device.getLocaleVariantBytes());
+    }
+    private static int regionScore(byte[] region, byte[] deviceRegion){
+        if(isZero(region)){
+            return 1;
+        }
+        if(equalBytes(region, deviceRegion)){
+            return 2;
+        }
+        return 0;
+    }
+    private static int preferEqual(byte[] bytes, byte[] other, byte[] device){
+        if(isZero(device) || equalBytes(bytes, other)){
+            return 0;
+        }
+        return equalBytes(bytes, device) ? 1 : -1;
+    }
+    private static int compareScreenSize(int size, int other, int device){
+        if(size == other || device == 0){
+            return 0;
+        }
+        // undefined is treated as normal when the device is at least normal
+        int fixedSize = size;
+        int fixedOther = other;
+        if(device >= ScreenLayoutSize.NORMAL.getFlag()){
+            if(fixedSize == 0){
+                fixedSize = ScreenLayoutSize.NORMAL.getFlag();
+            }
+            if(fixedOther == 0){
+                fixedOther = ScreenLayoutSize.NORMAL.getFlag();
+            }
+        }
+        if(fixedSize == fixedOther){
+            return size != 0 ? 1 : -1;
+        }
+        return fixedSize > fixedOther ? 1 : -1;
+    }
+    private static int compareDelta(int width, int height, int otherWidth, int otherHeight,
+                                    int deviceWidth, int deviceHeight){
+        int delta = 0;
+        int otherDelta = 0;
+        if(deviceWidth != 0){
+            delta += deviceWidth - width;
+            otherDelta += deviceWidth - otherWidth;
+        }
+        if(deviceHeight != 0){
+            delta += deviceHeight - height;
+            otherDelta += deviceHeight - otherHeight;
+        }
+        return Integer.compare(otherDelta, delta);
+    }
+    private static int compareDensity(int density, int other, int device){
+        if(density == other){
+            return 0;
+        }
+        int any = Density.ANYDPI.getFlag();
+        if(density == any){
+            return 1;
+        }
+        if(other == any){
+            return -1;
+        }
+        int medium = Density.MDPI.getFlag();
+        if(device == 0){
+            device = medium;
+        }
+        if(density == 0){
+            density = medium;
+        }
+        if(other == 0){
+            other = medium;
+        }
+        if(density == other){
+            return 0;
+        }
+        int high = density;
+        int low = other;
+        int bigger = 1;
+        if(low > high){
+            high = other;
+            low = density;
+            bigger = -1;
+        }
+        if(device >= high){
+            return bigger;
+        }
+        if(low >= device){
+            return -bigger;
+        }
+        // scaling down is considered twice as good as scaling up
+        if(((2L * low) - device) * high > (long) device * device){
+            return -bigger;
+        }
+        return bigger;
+    }
+    private static int compareKeysHidden(int keysHidden, int other, int device){
+        if(keysHidden == other || device == 0){
+            return 0;
+        }
+        if(keysHidden == 0){
+            return -1;
+        }
+        if(other == 0 || keysHidden == device){
+            return 1;
+        }
+        if(other == device){
+            return -1;
+        }
+        return 0;
+    }
+    private static boolean matchKeysHidden(int keysHidden, int device){
+        if(keysHidden == 0 || keysHidden == device){
+            return true;
+        }
+        // keysHidden=no is accepted for keysHidden=soft devices
+        return keysHidden == InputFlagsKeysHidden.KEYSEXPOSED.getFlag()
+                && device == InputFlagsKeysHidden.KEYSSOFT.getFlag();
+    }
+    private static int preferSpecified(int value, int other, int device){
+        if(value == other || device == 0){
+            return 0;
+        }
+        return value != 0 ? 1 : -1;
+    }
+    private static boolean matchExact(int value, int device){
+        return value == 0 || value == device;
+    }
+    private static boolean matchAtMost(int value, int device){
+        return value == 0 || value <= device;
+    }
+    private static boolean isZero(byte[] bytes){
+        if(bytes == null){
+            return true;
+        }
+        for(byte b : bytes){
+            if(b != 0){
+                return false;
+            }
+        }
+        return true;
+    }
+    private static boolean equalBytes(byte[] bytes, byte[] other){
+        if(isZero(bytes)){
+            return isZero(other);
+        }
+        return other != null && Arrays.equals(bytes, other);
+    }
     public void copyFrom(ResConfig resConfig){
         if(resConfig == this || resConfig == null){
             return;
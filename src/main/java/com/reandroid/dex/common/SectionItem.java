@@ -94,10 +94,20 @@ public class SectionItem extends BlockItem implements EditableItem, SectionTool,
     }
     @Override
     public void addUsageType(int usage){
-        this.mUsageType |= usage;
+        addUsageTypeInternal(this, usage);
         SectionItem replace = this.getReplace();
         if(replace != null && replace != this){
-            replace.mUsageType |= usage;
+            addUsageTypeInternal(replace, usage);
+        }
+    }
+    private static void addUsageTypeInternal(SectionItem item, int usage){
+        int previous = item.mUsageType;
+        item.mUsageType = previous | usage;
+        if(previous == UsageMarker.USAGE_NONE && usage != UsageMarker.USAGE_NONE){
+            SectionList sectionList = item.getSectionList();
+            if(sectionList != null){
+                sectionList.onUsedInternal(item);
+            }
         }
     }
     @Override
@@ -230,6 +230,8 @@ public class InstructionList extends FixedBlockContainer implements
     }
 
     private InsBlockList getInsBlockList() {
+        InsBlockList insBlockList = this.insBlockList;
+        insBlockList.decodeLazy();
         return insBlockList;
     }
 
@@ -435,10 +437,10 @@ public class InstructionList extends FixedBlockContainer implements
     @Override
     protected void onRefreshed() {
         super.onRefreshed();
-        getInsBlockList().unlink();
+        this.insBlockList.unlink();
     }
     public int getCodeUnits() {
-        return getInsBlockList().getCodeUnits();
+        return this.insBlockList.getCodeUnits();
     }
     public DexPositionAlign getBlockAlign() {
         return blockAlign;
@@ -519,12 +521,16 @@ public class InstructionList extends FixedBlockContainer implements
             return false;
         }
         InstructionList list = (InstructionList) obj;
-        return insBlockList.equals(list.insBlockList);
+        return getInsBlockList().equals(list.getInsBlockList());
     }
 
     @Override
     public int hashCode() {
-        return insBlockList.hashCode();
+        return getInsBlockList().hashCode();
+    }
+
+    public boolean isDecoded() {
+        return insBlockList.isDecoded();
     }
 
     @Override
@@ -18,6 +18,8 @@ package com.reandroid.dex.header;
 import com.reandroid.arsc.base.Block;
 import com.reandroid.utils.HexUtil;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.zip.Adler32;
 
 public class Checksum extends HeaderPiece {
@@ -39,8 +41,62 @@ public class Checksum extends HeaderPiece {
         adler32.update(bytes, start, bytes.length - start);
         setValue(adler32.getValue());
     }
+    /**
+     * Sets checksum of [signature bytes] + [rest of file], where the rest was hashed
+     * before the signature is known
+     * */
+    void update(byte[] signature, long restChecksum, long restLength) {
+        Adler32 adler32 = new Adler32();
+        adler32.update(signature, 0, signature.length);
+        setValue(combine(adler32.getValue(), restChecksum, restLength));
+    }
     @Override
     public String toString(){
         return HexUtil.toHex8(getValue());
     }
+
+    /**
+     * Verifies checksum of the whole dex file bytes without building DexLayout
+     * */
+    public static boolean verify(ByteBuffer dexBuffer) {
+        int fileSize = DexHeader.getFileSize(dexBuffer);
+        if(fileSize < 0){
+            return false;
+        }
+        ByteBuffer buffer = dexBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int value = buffer.getInt(buffer.position() + OFFSET);
+        return value == (int) compute(dexBuffer, fileSize);
+    }
+    static long compute(ByteBuffer dexBuffer, int fileSize) {
+        ByteBuffer buffer = dexBuffer.duplicate();
+        buffer.limit(buffer.position() + fileSize);
+        buffer.position(buffer.position() + OFFSET + 4);
+        Adler32 adler32 = new Adler32();
+        adler32.update(buffer);
+        return adler32.getValue();
+    }
+
+    // same as adler32_combine of zlib
+    static long combine(long adler1, long adler2, long length2) {
+        long rem = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xffff) + ADLER_BASE - 1;
+        sum2 += ((adler1 >> 16) & 0xffff) + ((adler2 >> 16) & 0xffff) + ADLER_BASE - rem;
+        if(sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if(sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if(sum2 >= (ADLER_BASE << 1)) {
+            sum2 -= (ADLER_BASE << 1);
+        }
+        if(sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+    private static final long ADLER_BASE = 65521;
+    private static final int OFFSET = 8;
 }
@@ -23,11 +23,23 @@ import com.reandroid.arsc.item.ByteArray;
 import com.reandroid.arsc.item.IntegerItem;
 import com.reandroid.arsc.item.IntegerReference;
 import com.reandroid.arsc.item.NumberIntegerReference;
+import com.reandroid.dex.base.DexException;
 import com.reandroid.dex.sections.SectionType;
 import com.reandroid.dex.sections.SpecialItem;
 
+import com.reandroid.utils.concurrent.WorkerPool;
+
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 public class DexHeader extends SpecialItem implements OffsetSupplier, BlockLoad {
 
@@ -139,11 +151,18 @@ public class DexHeader extends SpecialItem implements OffsetSupplier, BlockLoad
         return null;
     }
     public void updateHeaderInternal(Block parent){
-        byte[] bytes = parent.getBytes();
         headerSize.set(countBytes());
-        fileSize.set(bytes.length);
-        signature.update(parent, bytes);
-        checksum.update(parent, bytes);
+        fileSize.set(parent.countBytes());
+        int start = parent.countUpTo(signature) + signature.countBytes();
+        HeaderHashOutputStream stream = new HeaderHashOutputStream(start);
+        try {
+            parent.writeBytes(stream);
+        } catch (IOException exception) {
+            // signature and checksum would be left stale
+            throw new DexException("Failed to hash dex for header update", exception);
+        }
+        signature.update(stream.getSha1());
+        checksum.update(signature.getBytes(), stream.getChecksum(), stream.getHashedLength());
     }
     @Override
     public IntegerReference getOffsetReference() {
@@ -204,5 +223,54 @@ public class DexHeader extends SpecialItem implements OffsetSupplier, BlockLoad
         return dexHeader;
     }
 
+    /**
+     * Checks dex checksum and signature by mapping the file, no DexLayout is built
+     * */
+    public static boolean verify(File file) throws IOException {
+        return verify(file, WorkerPool.serial());
+    }
+    public static boolean verify(File file, WorkerPool workerPool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return verify(buffer, workerPool);
+        }
+    }
+    public static boolean verify(ByteBuffer dexBuffer) {
+        return Checksum.verify(dexBuffer) && Signature.verify(dexBuffer);
+    }
+    /**
+     * Runs checksum and signature hashing as two tasks when the pool is parallel
+     * */
+    public static boolean verify(ByteBuffer dexBuffer, WorkerPool workerPool) throws IOException {
+        if(!workerPool.isParallel()){
+            return verify(dexBuffer);
+        }
+        List<Callable<Boolean>> tasks = new ArrayList<>(2);
+        tasks.add(() -> Checksum.verify(dexBuffer));
+        tasks.add(() -> Signature.verify(dexBuffer));
+        List<Boolean> results = workerPool.invokeAll(tasks);
+        return results.get(0) && results.get(1);
+    }
+    /**
+     * Returns file_size from header, or -1 if the buffer is not a dex or is truncated
+     * */
+    static int getFileSize(ByteBuffer dexBuffer) {
+        int available = dexBuffer.remaining();
+        if(available < COMMON_HEADER_SIZE){
+            return -1;
+        }
+        ByteBuffer buffer = dexBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        if(buffer.get(position) != 'd' || buffer.get(position + 1) != 'e'
+                || buffer.get(position + 2) != 'x'){
+            return -1;
+        }
+        int fileSize = buffer.getInt(position + 32);
+        if(fileSize < COMMON_HEADER_SIZE || fileSize > available){
+            return -1;
+        }
+        return fileSize;
+    }
+
     private static final int COMMON_HEADER_SIZE = 112;
 }
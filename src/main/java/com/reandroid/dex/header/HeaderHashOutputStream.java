@@ -0,0 +1,75 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.header;
+
+import com.reandroid.utils.SHA1;
+
+import java.io.OutputStream;
+import java.util.zip.Adler32;
+
+/**
+ * Hashes everything written after the given start position, used to compute
+ * dex signature and checksum without building the whole file bytes
+ * */
+class HeaderHashOutputStream extends OutputStream {
+
+    private final long start;
+    private final SHA1 sha1;
+    private final Adler32 adler32;
+    private long position;
+
+    HeaderHashOutputStream(long start){
+        this.start = start;
+        this.sha1 = new SHA1();
+        this.adler32 = new Adler32();
+    }
+
+    SHA1 getSha1() {
+        return sha1;
+    }
+    long getChecksum() {
+        return adler32.getValue();
+    }
+    long getHashedLength() {
+        long length = position - start;
+        if(length < 0){
+            return 0;
+        }
+        return length;
+    }
+    @Override
+    public void write(int b) {
+        if(position >= start){
+            sha1.update((byte) b);
+            adler32.update(b);
+        }
+        position ++;
+    }
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        long skip = start - position;
+        position += length;
+        if(skip >= length){
+            return;
+        }
+        if(skip > 0){
+            offset += (int) skip;
+            length -= (int) skip;
+        }
+        sha1.update(bytes, offset, length);
+        adler32.update(bytes, offset, length);
+    }
+}
@@ -19,6 +19,9 @@ import com.reandroid.arsc.base.Block;
 import com.reandroid.utils.HexUtil;
 import com.reandroid.utils.SHA1;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 public class Signature extends HeaderPiece {
 
     public Signature(){
@@ -31,6 +34,9 @@ public class Signature extends HeaderPiece {
         sha1.update(bytes, start, bytes.length - start);
         sha1.digest(getBytesInternal());
     }
+    void update(SHA1 sha1) {
+        sha1.digest(getBytesInternal());
+    }
     public String getHex() {
         return HexUtil.toHexString(getBytesInternal());
     }
@@ -38,4 +44,30 @@ public class Signature extends HeaderPiece {
     public String toString() {
         return getHex();
     }
+
+    /**
+     * Verifies signature of the whole dex file bytes without building DexLayout
+     * */
+    public static boolean verify(ByteBuffer dexBuffer) {
+        int fileSize = DexHeader.getFileSize(dexBuffer);
+        if(fileSize < 0){
+            return false;
+        }
+        byte[] signature = new byte[SIZE];
+        ByteBuffer buffer = dexBuffer.duplicate();
+        buffer.position(buffer.position() + OFFSET);
+        buffer.get(signature);
+        return Arrays.equals(signature, compute(dexBuffer, fileSize));
+    }
+    static byte[] compute(ByteBuffer dexBuffer, int fileSize) {
+        ByteBuffer buffer = dexBuffer.duplicate();
+        buffer.limit(buffer.position() + fileSize);
+        buffer.position(buffer.position() + OFFSET + SIZE);
+        SHA1 sha1 = new SHA1();
+        sha1.update(buffer);
+        return sha1.digest();
+    }
+
+    private static final int OFFSET = 12;
+    private static final int SIZE = 20;
 }
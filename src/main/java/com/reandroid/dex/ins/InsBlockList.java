@@ -15,14 +15,21 @@
  */
 package com.reandroid.dex.ins;
 
+import com.reandroid.arsc.base.BlockCounter;
 import com.reandroid.arsc.container.BlockList;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.item.AlignItem;
 import com.reandroid.arsc.item.IntegerReference;
 import com.reandroid.dex.base.DexException;
+import com.reandroid.dex.base.UsageMarker;
+import com.reandroid.dex.common.SectionTool;
 import com.reandroid.dex.data.InstructionList;
 import com.reandroid.dex.data.MethodDef;
 import com.reandroid.dex.debug.DebugElement;
+import com.reandroid.dex.id.IdItem;
+import com.reandroid.dex.sections.DexLayout;
+import com.reandroid.dex.sections.SectionType;
+import com.reandroid.utils.HexUtil;
 import com.reandroid.utils.NumbersUtil;
 import com.reandroid.utils.ObjectsUtil;
 import com.reandroid.utils.collection.CombiningIterator;
@@ -31,6 +38,8 @@ import com.reandroid.utils.collection.IterableIterator;
 import com.reandroid.utils.collection.SingleIterator;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 
 public class InsBlockList extends BlockList<Ins> {
@@ -48,6 +57,10 @@ public class InsBlockList extends BlockList<Ins> {
 
     private Object mLockedBy;
 
+    private volatile byte[] mLazyBytes;
+    private int[] mLazyReferences;
+    private IdItem[] mLazyItems;
+
     public InsBlockList(AlignItem blockAlign,
                         IntegerReference codeUnitsReference,
                         IntegerReference outSizReference,
@@ -356,6 +369,10 @@ public class InsBlockList extends BlockList<Ins> {
     @Override
     protected void onRefreshed() {
         super.onRefreshed();
+        if(mLazyBytes != null) {
+            patchLazyReferences();
+            return;
+        }
         updateCodeUnits();
         mLocked = false;
         mSecondUpdateRequired = false;
@@ -366,8 +383,23 @@ public class InsBlockList extends BlockList<Ins> {
     public void onReadBytes(BlockReader reader) throws IOException {
         mLockedBy = new Object();
         int insCodeUnits = codeUnitsReference.get();
-        int position = reader.getPosition() + insCodeUnits * 2;
         int zeroPosition = reader.getPosition();
+        if(!isLazyDecode() || !readLazy(reader, insCodeUnits * 2)) {
+            readInstructions(reader, insCodeUnits);
+        }
+        int totalRead = reader.getPosition() - zeroPosition;
+        blockAlign.align(totalRead);
+        reader.offset(blockAlign.size());
+        mLocked = false;
+        mLinked = false;
+        mLockedBy = null;
+    }
+    private boolean isLazyDecode() {
+        DexLayout dexLayout = getParentInstance(DexLayout.class);
+        return dexLayout != null && dexLayout.isLazyDecode();
+    }
+    private void readInstructions(BlockReader reader, int insCodeUnits) throws IOException {
+        int position = reader.getPosition() + insCodeUnits * 2;
 
         int count = (insCodeUnits + 1) / 2;
         ensureCapacity(count);
@@ -383,12 +415,221 @@ public class InsBlockList extends BlockList<Ins> {
             // should not reach here
             reader.seek(position);
         }
-        int totalRead = reader.getPosition() - zeroPosition;
-        blockAlign.align(totalRead);
-        reader.offset(blockAlign.size());
-        mLocked = false;
+    }
+
+    public boolean isDecoded() {
+        return mLazyBytes == null;
+    }
+    /**
+     * Builds instructions from raw bytes kept by lazy read, the raw bytes are patched first
+     * so that the ids resolve to the same items referenced at read time
+     * */
+    public void decodeLazy() {
+        if(mLazyBytes != null) {
+            decodeLazySynchronized();
+        }
+    }
+    private synchronized void decodeLazySynchronized() {
+        byte[] bytes = this.mLazyBytes;
+        if(bytes == null) {
+            return;
+        }
+        patchLazyReferences();
+        Object lockedBy = new Object();
+        mLockedBy = lockedBy;
+        try {
+            readInstructions(new BlockReader(bytes), bytes.length / 2);
+        } catch (IOException exception) {
+            throw new DexException("Failed to decode instructions: "
+                    + getCurrentMethodForDebug(), exception);
+        }
+        this.mLazyReferences = null;
+        this.mLazyItems = null;
+        this.mLazyBytes = null;
         mLinked = false;
-        mLockedBy = null;
+        if(mLockedBy == lockedBy) {
+            mLockedBy = null;
+        }
+    }
+    /**
+     * Keeps raw code units and resolves only the id references, returns false for
+     * unrecognized opcodes to let the caller decode eagerly
+     * */
+    private boolean readLazy(BlockReader reader, int length) throws IOException {
+        if(length == 0) {
+            return false;
+        }
+        SectionTool sectionTool = getParentInstance(SectionTool.class);
+        if(sectionTool == null) {
+            return false;
+        }
+        int start = reader.getPosition();
+        byte[] bytes = reader.readBytes(length);
+        if(bytes.length != length) {
+            reader.seek(start);
+            return false;
+        }
+        int[] references = new int[4];
+        IdItem[] items = new IdItem[4];
+        int count = 0;
+        int position = 0;
+        while (position < length) {
+            Opcode<?> opcode = readOpcode(bytes, position);
+            if(opcode == null) {
+                reader.seek(start);
+                return false;
+            }
+            int size = opcode.size();
+            if(size < 0) {
+                size = payloadSize(opcode, bytes, position);
+            }
+            if(size <= 0 || position + size > length) {
+                reader.seek(start);
+                return false;
+            }
+            SectionType<? extends IdItem> sectionType = opcode.getSectionType();
+            if(sectionType != null) {
+                if(count + 2 > references.length) {
+                    references = Arrays.copyOf(references, references.length * 2);
+                    items = Arrays.copyOf(items, items.length * 2);
+                }
+                boolean wide = opcode == Opcode.CONST_STRING_JUMBO;
+                int offset = position + 2;
+                IdItem item = sectionTool.getSectionItem(sectionType, readReference(bytes, offset, wide));
+                if(item == null) {
+                    reader.seek(start);
+                    return false;
+                }
+                item.addUsageType(UsageMarker.USAGE_INSTRUCTION);
+                references[count] = (offset << 1) | (wide ? 1 : 0);
+                items[count] = item;
+                count ++;
+                if(opcode == Opcode.INVOKE_POLYMORPHIC || opcode == Opcode.INVOKE_POLYMORPHIC_RANGE) {
+                    offset = position + 6;
+                    item = sectionTool.getSectionItem(SectionType.PROTO_ID, readReference(bytes, offset, false));
+                    if(item == null) {
+                        reader.seek(start);
+                        return false;
+                    }
+                    references[count] = offset << 1;
+                    items[count] = item;
+                    count ++;
+                }
+            }
+            position += size;
+        }
+        this.mLazyReferences = Arrays.copyOf(references, count);
+        this.mLazyItems = Arrays.copyOf(items, count);
+        this.mLazyBytes = bytes;
+        return true;
+    }
+    private void patchLazyReferences() {
+        byte[] bytes = this.mLazyBytes;
+        int[] references = this.mLazyReferences;
+        IdItem[] items = this.mLazyItems;
+        int length = references.length;
+        for(int i = 0; i < length; i++) {
+            IdItem item = items[i];
+            IdItem replace = item.getReplace();
+            if(replace == null) {
+                throw new DexException("Invalid id item: " + item.getKey()
+                        + ", " + getCurrentMethodForDebug());
+            }
+            int reference = references[i];
+            int offset = reference >>> 1;
+            int idx = replace.getIdx();
+            boolean wide = (reference & 1) != 0;
+            if(!wide && (idx & 0xffff0000) != 0) {
+                // same as SizeXIns.setShort of eagerly decoded instructions
+                throw new DexException("Short value out of range "
+                        + HexUtil.toHex(idx, 4) + " > 0xffff, " + getCurrentMethodForDebug());
+            }
+            if(replace != item) {
+                items[i] = replace;
+            }
+            replace.addUsageType(UsageMarker.USAGE_INSTRUCTION);
+            if(wide) {
+                putInteger(bytes, offset, idx);
+            } else {
+                putShort(bytes, offset, idx);
+            }
+        }
+    }
+    private static int readReference(byte[] bytes, int offset, boolean wide) {
+        if(wide) {
+            return getInteger(bytes, offset);
+        }
+        return getShortUnsigned(bytes, offset);
+    }
+    private static Opcode<?> readOpcode(byte[] bytes, int position) {
+        int value = bytes[position] & 0xff;
+        if(value == 0) {
+            value = (bytes[position + 1] & 0xff) << 8;
+        }
+        return Opcode.valueOf(value);
+    }
+    private static int payloadSize(Opcode<?> opcode, byte[] bytes, int position) {
+        if(position + 8 > bytes.length) {
+            return -1;
+        }
+        int size = getShortUnsigned(bytes, position + 2);
+        if(opcode == Opcode.PACKED_SWITCH_PAYLOAD) {
+            return 8 + size * 4;
+        }
+        if(opcode == Opcode.SPARSE_SWITCH_PAYLOAD) {
+            return 4 + size * 8;
+        }
+        if(opcode == Opcode.ARRAY_PAYLOAD) {
+            long data = (getInteger(bytes, position + 4) & 0xffffffffL) * size;
+            if(data > bytes.length) {
+                return -1;
+            }
+            return 8 + (int) ((data + 1) & ~1L);
+        }
+        return -1;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        byte[] bytes = this.mLazyBytes;
+        if(bytes != null) {
+            return bytes.clone();
+        }
+        return super.getBytes();
+    }
+    @Override
+    public int countBytes() {
+        byte[] bytes = this.mLazyBytes;
+        if(bytes != null) {
+            return bytes.length;
+        }
+        return super.countBytes();
+    }
+    @Override
+    public void onCountUpTo(BlockCounter counter) {
+        byte[] bytes = this.mLazyBytes;
+        if(bytes == null) {
+            super.onCountUpTo(counter);
+            return;
+        }
+        if(counter.FOUND) {
+            return;
+        }
+        counter.setCurrent(this);
+        if(counter.END == this) {
+            counter.FOUND = true;
+            return;
+        }
+        counter.addCount(bytes.length);
+    }
+    @Override
+    protected int onWriteBytes(OutputStream stream) throws IOException {
+        byte[] bytes = this.mLazyBytes;
+        if(bytes != null) {
+            stream.write(bytes);
+            return bytes.length;
+        }
+        return super.onWriteBytes(stream);
     }
     public void merge(InsBlockList insBlockList){
         if(insBlockList == this) {
@@ -35,6 +35,8 @@ public class FieldKey implements Key {
     private final String name;
     private final String type;
 
+    private int mHash;
+
     public FieldKey(String declaring, String name, String type) {
         this.declaring = declaring;
         this.name = name;
@@ -169,12 +171,18 @@ public class FieldKey implements Key {
 
     @Override
     public int hashCode() {
-        int hash = 1;
+        int hash = mHash;
+        if(hash != 0){
+            return hash;
+        }
+        hash = 1;
         String defining = getDeclaringName();
         if(defining != null){
             hash += defining.hashCode();
         }
-        return hash * 31 + getName().hashCode();
+        hash = hash * 31 + getName().hashCode();
+        mHash = hash;
+        return hash;
     }
 
     public boolean equalsDeclaring(String declaring){
@@ -304,7 +312,7 @@ public class FieldKey implements Key {
         if(!StringsUtil.isEmpty(text)){
             type = text;
         }
-        return new FieldKey(defining, name, type);
+        return KeyInterner.intern(new FieldKey(defining, name, type));
     }
     public static FieldKey create(FieldId fieldId){
         TypeKey defining = fieldId.getDefining();
@@ -319,7 +327,7 @@ public class FieldKey implements Key {
         if(fieldType == null){
             return null;
         }
-        return new FieldKey(defining.getTypeName(), name, fieldType.getTypeName());
+        return KeyInterner.intern(new FieldKey(defining.getTypeName(), name, fieldType.getTypeName()));
     }
 
     public static FieldKey read(SmaliReader reader) throws IOException {
@@ -344,7 +352,7 @@ public class FieldKey implements Key {
         reader.skipWhitespacesOrComment();
         SmaliParseException.expect(reader, ':');
         TypeKey type = TypeKey.read(reader);
-        return new FieldKey(declaring.getTypeName(), name, type.getTypeName());
+        return KeyInterner.intern(new FieldKey(declaring.getTypeName(), name, type.getTypeName()));
     }
 
 }
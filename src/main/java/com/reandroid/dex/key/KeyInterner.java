@@ -0,0 +1,271 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.key;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Optional weak interner for immutable keys (TypeKey, ProtoKey, FieldKey and MethodKey),
+ * when enabled the static factories return one shared instance per distinct key so that
+ * equals() mostly ends on identity check. Entries are dropped once the key is no longer
+ * referenced. StringKey is not interned since its signature flag is mutable.
+ * Keys are matched on exact components, unlike equals() where ANY_NAME matches
+ * anything, and keys containing ANY_NAME are never interned.
+ * */
+public final class KeyInterner {
+
+    private KeyInterner(){
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    public static void setEnabled(boolean enabled) {
+        KeyInterner.enabled = enabled;
+        if(!enabled){
+            clear();
+        }
+    }
+    public static<T extends Key> T intern(T key){
+        if(!enabled || key == null || !isInternable(key)){
+            return key;
+        }
+        int hash = spread(strictHash(key));
+        return SEGMENTS[hash >>> SEGMENT_SHIFT].intern(key, hash);
+    }
+    public static int size(){
+        int result = 0;
+        for(Segment segment : SEGMENTS){
+            result += segment.size();
+        }
+        return result;
+    }
+    public static void clear(){
+        for(Segment segment : SEGMENTS){
+            segment.clear();
+        }
+    }
+    private static int spread(int hash){
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean isInternable(Key key){
+        if(key instanceof TypeKey){
+            return isName(((TypeKey) key).getTypeName());
+        }
+        if(key instanceof ProtoKey){
+            ProtoKey protoKey = (ProtoKey) key;
+            return isName(protoKey.getReturnTypeName())
+                    && isNames(protoKey.getParameterNames());
+        }
+        if(key instanceof FieldKey){
+            FieldKey fieldKey = (FieldKey) key;
+            return isName(fieldKey.getDeclaringName())
+                    && isName(fieldKey.getName())
+                    && isName(fieldKey.getTypeName());
+        }
+        if(key instanceof MethodKey){
+            MethodKey methodKey = (MethodKey) key;
+            return isName(methodKey.getDeclaringName())
+                    && isName(methodKey.getName())
+                    && isName(methodKey.getReturnTypeName())
+                    && isNames(methodKey.getParameterNames());
+        }
+        return false;
+    }
+    private static boolean isName(String name){
+        return !KeyUtil.ANY_NAME.equals(name);
+    }
+    private static boolean isNames(String[] names){
+        if(names != null){
+            for(String name : names){
+                if(!isName(name)){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    private static int strictHash(Key key){
+        if(key instanceof TypeKey){
+            return Objects.hashCode(((TypeKey) key).getTypeName());
+        }
+        if(key instanceof ProtoKey){
+            ProtoKey protoKey = (ProtoKey) key;
+            return Objects.hashCode(protoKey.getReturnTypeName()) * 31
+                    + Arrays.hashCode(protoKey.getParameterNames());
+        }
+        if(key instanceof FieldKey){
+            FieldKey fieldKey = (FieldKey) key;
+            int hash = Objects.hashCode(fieldKey.getDeclaringName());
+            hash = hash * 31 + Objects.hashCode(fieldKey.getName());
+            return hash * 31 + Objects.hashCode(fieldKey.getTypeName());
+        }
+        MethodKey methodKey = (MethodKey) key;
+        int hash = Objects.hashCode(methodKey.getDeclaringName());
+        hash = hash * 31 + Objects.hashCode(methodKey.getName());
+        hash = hash * 31 + Objects.hashCode(methodKey.getReturnTypeName());
+        return hash * 31 + Arrays.hashCode(methodKey.getParameterNames());
+    }
+    private static boolean strictEquals(Key key1, Key key2){
+        if(key1 == key2){
+            return true;
+        }
+        if(key1.getClass() != key2.getClass()){
+            return false;
+        }
+        if(key1 instanceof TypeKey){
+            return Objects.equals(((TypeKey) key1).getTypeName(), ((TypeKey) key2).getTypeName());
+        }
+        if(key1 instanceof ProtoKey){
+            ProtoKey protoKey1 = (ProtoKey) key1;
+            ProtoKey protoKey2 = (ProtoKey) key2;
+            return Objects.equals(protoKey1.getReturnTypeName(), protoKey2.getReturnTypeName())
+                    && Arrays.equals(protoKey1.getParameterNames(), protoKey2.getParameterNames());
+        }
+        if(key1 instanceof FieldKey){
+            FieldKey fieldKey1 = (FieldKey) key1;
+            FieldKey fieldKey2 = (FieldKey) key2;
+            return Objects.equals(fieldKey1.getDeclaringName(), fieldKey2.getDeclaringName())
+                    && Objects.equals(fieldKey1.getName(), fieldKey2.getName())
+                    && Objects.equals(fieldKey1.getTypeName(), fieldKey2.getTypeName());
+        }
+        MethodKey methodKey1 = (MethodKey) key1;
+        MethodKey methodKey2 = (MethodKey) key2;
+        return Objects.equals(methodKey1.getDeclaringName(), methodKey2.getDeclaringName())
+                && Objects.equals(methodKey1.getName(), methodKey2.getName())
+                && Objects.equals(methodKey1.getReturnTypeName(), methodKey2.getReturnTypeName())
+                && Arrays.equals(methodKey1.getParameterNames(), methodKey2.getParameterNames());
+    }
+
+    /**
+     * Weakly referenced key of a segment bucket chain, the hash is kept
+     * so that cleared entries can still be unlinked
+     * */
+    private static class StrictKey extends WeakReference<Key> {
+
+        final int hash;
+        StrictKey next;
+
+        StrictKey(Key key, int hash, ReferenceQueue<Key> queue, StrictKey next){
+            super(key, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Chained hash table looked up by strict hash and strictEquals, so a lookup allocates
+     * nothing and a reference is created only when a new key is inserted
+     * */
+    private static class Segment {
+
+        private final ReferenceQueue<Key> queue;
+        private StrictKey[] table;
+        private int count;
+
+        Segment(){
+            this.queue = new ReferenceQueue<>();
+            this.table = new StrictKey[INITIAL_CAPACITY];
+        }
+        @SuppressWarnings("unchecked")
+        synchronized <T extends Key> T intern(T key, int hash){
+            expunge();
+            StrictKey[] table = this.table;
+            int index = hash & (table.length - 1);
+            for(StrictKey entry = table[index]; entry != null; entry = entry.next){
+                if(entry.hash == hash){
+                    Key exist = entry.get();
+                    if(exist != null && strictEquals(exist, key)){
+                        return (T) exist;
+                    }
+                }
+            }
+            table[index] = new StrictKey(key, hash, queue, table[index]);
+            count ++;
+            if(count > table.length - (table.length >>> 2)){
+                resize();
+            }
+            return key;
+        }
+        synchronized int size(){
+            expunge();
+            return count;
+        }
+        synchronized void clear(){
+            // references enqueued later are not found in the new table, unlinking them is a no-op
+            table = new StrictKey[INITIAL_CAPACITY];
+            count = 0;
+        }
+        private void expunge(){
+            Object reference;
+            while ((reference = queue.poll()) != null){
+                unlink((StrictKey) reference);
+            }
+        }
+        private void unlink(StrictKey strictKey){
+            StrictKey[] table = this.table;
+            int index = strictKey.hash & (table.length - 1);
+            StrictKey previous = null;
+            for(StrictKey entry = table[index]; entry != null; entry = entry.next){
+                if(entry == strictKey){
+                    if(previous == null){
+                        table[index] = entry.next;
+                    }else {
+                        previous.next = entry.next;
+                    }
+                    entry.next = null;
+                    count --;
+                    return;
+                }
+                previous = entry;
+            }
+        }
+        private void resize(){
+            StrictKey[] table = this.table;
+            StrictKey[] resized = new StrictKey[table.length << 1];
+            int mask = resized.length - 1;
+            for(StrictKey entry : table){
+                while (entry != null){
+                    StrictKey next = entry.next;
+                    int index = entry.hash & mask;
+                    entry.next = resized[index];
+                    resized[index] = entry;
+                    entry = next;
+                }
+            }
+            this.table = resized;
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+    // segment is picked by the high bits, buckets by the low bits of the spread hash
+    private static final int SEGMENT_SHIFT = 28;
+
+    private static volatile boolean enabled;
+    private static final Segment[] SEGMENTS;
+
+    static {
+        Segment[] segments = new Segment[16];
+        for(int i = 0; i < segments.length; i++){
+            segments[i] = new Segment();
+        }
+        SEGMENTS = segments;
+    }
+}
@@ -39,6 +39,7 @@ public class MethodKey implements Key{
     private final String returnType;
 
     private int mParamsHash;
+    private int mHash;
 
     public MethodKey(String declaring, String name, String[] parameters, String returnType){
         this.declaring = declaring;
@@ -408,7 +409,11 @@ public class MethodKey implements Key{
 
     @Override
     public int hashCode() {
-        int hash = 1;
+        int hash = mHash;
+        if(hash != 0){
+            return hash;
+        }
+        hash = 1;
         String defining = getDeclaringName();
         if(defining != null){
             hash += defining.hashCode();
@@ -419,6 +424,7 @@ public class MethodKey implements Key{
         if(returnType != null){
             hash = hash + returnType.hashCode();
         }
+        mHash = hash;
         return hash;
     }
     private int getNameParamsHashCode() {
@@ -490,7 +496,7 @@ public class MethodKey implements Key{
         if(!StringsUtil.isEmpty(text)){
             returnType = text;
         }
-        return new MethodKey(defining, name, parameters, returnType);
+        return KeyInterner.intern(new MethodKey(defining, name, parameters, returnType));
     }
 
     public static MethodKey create(MethodId methodId){
@@ -502,7 +508,8 @@ public class MethodKey implements Key{
         if(name == null){
             return null;
         }
-        return new MethodKey(defining, name, methodId.getParameterNames(), methodId.getReturnTypeName());
+        return KeyInterner.intern(new MethodKey(defining, name,
+                methodId.getParameterNames(), methodId.getReturnTypeName()));
     }
 
     public static MethodKey read(SmaliReader reader) throws IOException {
@@ -513,11 +520,11 @@ public class MethodKey implements Key{
         reader.skipWhitespacesOrComment();
         String name = reader.readEscapedString('(');
         ProtoKey protoKey = ProtoKey.read(reader);
-        return new MethodKey(
+        return KeyInterner.intern(new MethodKey(
                 declaring.getTypeName(),
                 name,
                 protoKey.getParameterNames(),
-                protoKey.getReturnTypeName());
+                protoKey.getReturnTypeName()));
     }
 
     public static final MethodKey STATIC_CONSTRUCTOR = new MethodKey(
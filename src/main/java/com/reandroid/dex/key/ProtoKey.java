@@ -232,7 +232,7 @@ public class ProtoKey implements Key{
         if(returnType == null){
             return null;
         }
-        return new ProtoKey(protoId.getParameterNames(), returnType.getTypeName());
+        return KeyInterner.intern(new ProtoKey(protoId.getParameterNames(), returnType.getTypeName()));
     }
     public static ProtoKey create(TypeListKey typeListKey, String returnType){
         if(returnType == null){
@@ -242,7 +242,7 @@ public class ProtoKey implements Key{
         if(typeListKey != null){
             parameters = typeListKey.getParameterNames();
         }
-        return new ProtoKey(parameters, returnType);
+        return KeyInterner.intern(new ProtoKey(parameters, returnType));
     }
 
     public static ProtoKey read(SmaliReader reader) throws IOException {
@@ -267,7 +267,7 @@ public class ProtoKey implements Key{
                 parameters[i] = parameterKeys.get(i).getTypeName();
             }
         }
-        return new ProtoKey(parameters, returnType.getTypeName());
+        return KeyInterner.intern(new ProtoKey(parameters, returnType.getTypeName()));
     }
 
     private static char toShorty(String typeName) {
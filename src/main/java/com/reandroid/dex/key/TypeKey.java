@@ -376,7 +376,7 @@ public class TypeKey implements Key{
             return null;
         }
         if(length != 1){
-            return new TypeKey(typeName);
+            return KeyInterner.intern(new TypeKey(typeName));
         }
         return primitiveType(typeName.charAt(0));
     }
@@ -421,6 +421,7 @@ public class DexClass extends DexDeclaration implements Comparable<DexClass> {
     }
     public void setSuperClass(TypeKey superClass){
         getId().setSuperClass(superClass);
+        getDexFile().onClassesChanged();
     }
     public String getSourceFileName(){
         return getId().getSourceFileName();
@@ -447,6 +448,7 @@ public class DexClass extends DexDeclaration implements Comparable<DexClass> {
     public void addInterface(String typeName) {
         TypeListReference reference = getId().getInterfacesReference();
         reference.add(typeName);
+        getDexFile().onClassesChanged();
     }
     public void removeInterface(TypeKey typeKey) {
         if(typeKey != null) {
@@ -456,10 +458,12 @@ public class DexClass extends DexDeclaration implements Comparable<DexClass> {
     public void removeInterface(String typeName) {
         TypeListReference reference = getId().getInterfacesReference();
         reference.remove(reference.indexOf(typeName));
+        getDexFile().onClassesChanged();
     }
     public void clearInterfaces() {
         TypeListReference reference = getId().getInterfacesReference();
         reference.setItem((TypeList) null);
+        getDexFile().onClassesChanged();
     }
     public void clearDebug(){
         Iterator<DexMethod> iterator = getDeclaredMethods();
@@ -630,6 +634,7 @@ public class DexClass extends DexDeclaration implements Comparable<DexClass> {
     @Override
     public void removeSelf(){
         getDefinition().removeSelf();
+        getDexFile().onClassesChanged();
     }
     public void edit(){
         getId().edit();
@@ -0,0 +1,267 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.model;
+
+import com.reandroid.dex.common.DexUtils;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.utils.collection.ArrayCollection;
+import com.reandroid.utils.collection.EmptyIterator;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Directory wide index of type -> defining dex, super class -> extending classes and
+ * interface -> implementing classes. Classes merged into or removed from a DexFile of the
+ * directory update it in place, other class changes through DexFile and DexClass reload it on
+ * next query. After changes made directly on ClassId, DexLayout or DexFileSourceSet call
+ * DexDirectory.clearPoolMap()
+ * Once built, queries do not lock and can run from multiple threads, loading and updates are
+ * serialized.
+ * */
+public class DexClassIndex {
+
+    private final DexDirectory dexDirectory;
+    private final List<TypeKey> mRemovedKeys;
+    private volatile IndexMaps mIndexMaps;
+
+    DexClassIndex(DexDirectory dexDirectory){
+        this.dexDirectory = dexDirectory;
+        this.mRemovedKeys = new ArrayCollection<>();
+    }
+
+    public DexClass getDexClass(TypeKey typeKey){
+        if(typeKey == null){
+            return null;
+        }
+        IndexMaps indexMaps = getIndexMaps();
+        DexClass dexClass = indexMaps.getDefined(typeKey);
+        if(dexClass == null && indexMaps.definingMap.containsKey(typeKey)){
+            // renamed or removed out of directory
+            dexClass = reload(indexMaps).getDefined(typeKey);
+        }
+        return dexClass;
+    }
+    public boolean contains(TypeKey typeKey){
+        return getDexClass(typeKey) != null;
+    }
+    public Iterator<DexClass> getExtendingClasses(TypeKey typeKey){
+        IndexMaps indexMaps = getIndexMaps();
+        return indexMaps.toClasses(indexMaps.extendingMap.get(typeKey));
+    }
+    public Iterator<DexClass> getImplementClasses(TypeKey typeKey){
+        IndexMaps indexMaps = getIndexMaps();
+        return indexMaps.toClasses(indexMaps.implementationMap.get(typeKey));
+    }
+    /**
+     * All classes extending or implementing the given type directly or indirectly
+     * */
+    public Iterator<DexClass> getSubTypes(TypeKey typeKey){
+        IndexMaps indexMaps = getIndexMaps();
+        ArrayCollection<DexClass> results = new ArrayCollection<>();
+        Set<TypeKey> visited = new HashSet<>();
+        visited.add(typeKey);
+        ArrayDeque<TypeKey> pending = new ArrayDeque<>();
+        pending.add(typeKey);
+        while (!pending.isEmpty()){
+            TypeKey key = pending.poll();
+            indexMaps.addSubTypes(indexMaps.extendingMap.get(key), visited, pending, results);
+            indexMaps.addSubTypes(indexMaps.implementationMap.get(key), visited, pending, results);
+        }
+        return results.iterator();
+    }
+
+    synchronized void onMerged(DexClass dexClass){
+        IndexMaps indexMaps = this.mIndexMaps;
+        if(indexMaps == null){
+            return;
+        }
+        if(indexMaps.definingMap.containsKey(dexClass.getKey())){
+            // defining dex depends on directory order
+            invalidate();
+            return;
+        }
+        indexMaps.add(dexClass.getDexFile(), dexClass);
+    }
+    synchronized void onRemoving(DexClass dexClass){
+        IndexMaps indexMaps = this.mIndexMaps;
+        if(indexMaps == null){
+            return;
+        }
+        if(indexMaps.remove(dexClass)){
+            mRemovedKeys.add(dexClass.getKey());
+        }
+    }
+    synchronized void onRemoved(){
+        IndexMaps indexMaps = this.mIndexMaps;
+        if(indexMaps == null){
+            return;
+        }
+        // a duplicate definition in next dex takes over
+        for(TypeKey typeKey : mRemovedKeys){
+            for(DexFile dexFile : dexDirectory){
+                DexClass duplicate = dexFile.getDexClass(typeKey);
+                if(duplicate != null){
+                    indexMaps.add(dexFile, duplicate);
+                    break;
+                }
+            }
+        }
+        mRemovedKeys.clear();
+    }
+    synchronized void invalidate(){
+        mIndexMaps = null;
+        mRemovedKeys.clear();
+    }
+    private IndexMaps getIndexMaps(){
+        IndexMaps indexMaps = this.mIndexMaps;
+        if(indexMaps == null){
+            indexMaps = reload(null);
+        }
+        return indexMaps;
+    }
+    private synchronized IndexMaps reload(IndexMaps stale){
+        IndexMaps indexMaps = this.mIndexMaps;
+        if(indexMaps == null || indexMaps == stale){
+            indexMaps = new IndexMaps();
+            for(DexFile dexFile : dexDirectory){
+                Iterator<DexClass> iterator = dexFile.getDexClasses();
+                while (iterator.hasNext()){
+                    indexMaps.add(dexFile, iterator.next());
+                }
+            }
+            indexMaps.published = true;
+            this.mIndexMaps = indexMaps;
+        }
+        return indexMaps;
+    }
+
+    /**
+     * Writes happen under the DexClassIndex lock, once published type lists are copied on
+     * write so readers never see a list change.
+     * */
+    static class IndexMaps {
+
+        final Map<TypeKey, DexFile> definingMap;
+        final Map<TypeKey, List<TypeKey>> extendingMap;
+        final Map<TypeKey, List<TypeKey>> implementationMap;
+        boolean published;
+
+        IndexMaps(){
+            this.definingMap = new ConcurrentHashMap<>();
+            this.extendingMap = new ConcurrentHashMap<>();
+            this.implementationMap = new ConcurrentHashMap<>();
+        }
+
+        DexClass getDefined(TypeKey typeKey){
+            DexFile dexFile = definingMap.get(typeKey);
+            if(dexFile != null){
+                return dexFile.getDexClass(typeKey);
+            }
+            return null;
+        }
+        Iterator<DexClass> toClasses(List<TypeKey> typeKeys){
+            if(typeKeys == null){
+                return EmptyIterator.of();
+            }
+            ArrayCollection<DexClass> results = new ArrayCollection<>(typeKeys.size());
+            for(TypeKey typeKey : typeKeys){
+                DexClass dexClass = getDefined(typeKey);
+                if(dexClass != null){
+                    results.add(dexClass);
+                }
+            }
+            return results.iterator();
+        }
+        void addSubTypes(List<TypeKey> typeKeys, Set<TypeKey> visited,
+                         ArrayDeque<TypeKey> pending, ArrayCollection<DexClass> results){
+            if(typeKeys == null){
+                return;
+            }
+            for(TypeKey typeKey : typeKeys){
+                if(!visited.add(typeKey)){
+                    continue;
+                }
+                DexClass dexClass = getDefined(typeKey);
+                if(dexClass != null){
+                    results.add(dexClass);
+                    pending.add(typeKey);
+                }
+            }
+        }
+        void add(DexFile dexFile, DexClass dexClass){
+            TypeKey typeKey = dexClass.getKey();
+            if(definingMap.putIfAbsent(typeKey, dexFile) != null){
+                return;
+            }
+            TypeKey superKey = dexClass.getSuperClassKey();
+            if(superKey != null && !DexUtils.isJavaFramework(superKey.getTypeName())){
+                put(extendingMap, superKey, typeKey);
+            }
+            Iterator<TypeKey> iterator = dexClass.getInterfaces();
+            while (iterator.hasNext()){
+                TypeKey interfaceKey = iterator.next();
+                if(!DexUtils.isJavaFramework(interfaceKey.getTypeName())){
+                    put(implementationMap, interfaceKey, typeKey);
+                }
+            }
+        }
+        boolean remove(DexClass dexClass){
+            TypeKey typeKey = dexClass.getKey();
+            if(!definingMap.remove(typeKey, dexClass.getDexFile())){
+                return false;
+            }
+            remove(extendingMap, dexClass.getSuperClassKey(), typeKey);
+            Iterator<TypeKey> iterator = dexClass.getInterfaces();
+            while (iterator.hasNext()){
+                remove(implementationMap, iterator.next(), typeKey);
+            }
+            return true;
+        }
+        private void put(Map<TypeKey, List<TypeKey>> map, TypeKey key, TypeKey value){
+            List<TypeKey> exist = map.get(key);
+            if(exist != null && !published){
+                exist.add(value);
+                return;
+            }
+            List<TypeKey> list;
+            if(exist == null){
+                list = new ArrayList<>(1);
+            }else {
+                list = new ArrayList<>(exist.size() + 1);
+                list.addAll(exist);
+            }
+            list.add(value);
+            map.put(key, list);
+        }
+        private static void remove(Map<TypeKey, List<TypeKey>> map, TypeKey key, TypeKey value){
+            if(key == null){
+                return;
+            }
+            List<TypeKey> exist = map.get(key);
+            if(exist == null || !exist.contains(value)){
+                return;
+            }
+            if(exist.size() == 1){
+                map.remove(key);
+                return;
+            }
+            List<TypeKey> list = new ArrayList<>(exist);
+            list.remove(value);
+            map.put(key, list);
+        }
+    }
+}
@@ -26,24 +26,33 @@ import com.reandroid.dex.key.*;
 import com.reandroid.dex.sections.*;
 import com.reandroid.dex.smali.SmaliWriter;
 import com.reandroid.utils.collection.*;
+import com.reandroid.utils.concurrent.WorkerPool;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 public class DexDirectory implements Iterable<DexFile>, Closeable,
         DexClassRepository, FullRefresh {
 
     private final DexFileSourceSet dexSourceSet;
     private Object mTag;
+    private WorkerPool workerPool;
     private final ArrayCollection<TypeKeyReference> externalTypeKeyReferenceList;
+    private final DexClassIndex classIndex;
 
     public DexDirectory() {
         this.dexSourceSet = new DexFileSourceSet();
         this.externalTypeKeyReferenceList = new ArrayCollection<>();
+        this.classIndex = new DexClassIndex(this);
     }
 
     public Object getTag() {
@@ -137,6 +146,8 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
         shrink();
         directory.merge(options);
         getDexSourceSet().merge(directory.getDexSourceSet());
+        classIndex.invalidate();
+        directory.getClassIndex().invalidate();
     }
     public void merge(){
         merge(new DexMergeOptions());
@@ -171,24 +182,14 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
     public int shrink() {
         int result = 0;
         result += DalvikUtil.cleanMissingMembers(this);
-        for(DexFile dexFile : this){
-            result += dexFile.shrink();
-        }
+        result += sumEach(DexFile::shrink);
         return result;
     }
     public int clearDuplicateData(){
-        int result = 0;
-        for(DexFile dexFile : this){
-            result += dexFile.clearDuplicateData();
-        }
-        return result;
+        return sumEach(DexFile::clearDuplicateData);
     }
     public int clearUnused(){
-        int result = 0;
-        for(DexFile dexFile : this){
-            result += dexFile.clearUnused();
-        }
-        return result;
+        return sumEach(DexFile::clearUnused);
     }
 
     public void cleanDuplicateDebugLines(){
@@ -222,26 +223,19 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
         return CombiningIterator.two(SingleIterator.of(definingKey), subKeys);
     }
     public Iterator<DexClass> getSubTypes(TypeKey typeKey){
-        return new IterableIterator<DexFile, DexClass>(iterator()) {
-            @Override
-            public Iterator<DexClass> iterator(DexFile element) {
-                return element.getSubTypes(typeKey);
-            }
-        };
+        return getClassIndex().getSubTypes(typeKey);
     }
     public Iterator<DexClass> getImplementClasses(TypeKey typeKey){
-        return new IterableIterator<DexFile, DexClass>(iterator()) {
-            @Override
-            public Iterator<DexClass> iterator(DexFile element) {
-                return element.getImplementClasses(typeKey);
-            }
-        };
+        return getClassIndex().getImplementClasses(typeKey);
+    }
+    public DexClassIndex getClassIndex() {
+        return classIndex;
     }
     public void save() throws IOException {
-        dexSourceSet.saveAll();
+        dexSourceSet.saveAll(getWorkerPool());
     }
     public void save(File dir) throws IOException {
-        dexSourceSet.saveAll(dir);
+        dexSourceSet.saveAll(dir, getWorkerPool());
     }
     public Iterator<ClassId> getClassIds() {
         return getItems(SectionType.CLASS_ID);
@@ -318,6 +312,9 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
     }
     @Override
     public DexClass getDexClass(TypeKey key){
+        return getClassIndex().getDexClass(key);
+    }
+    private DexClass searchDexClass(TypeKey key){
         for(DexFile dexFile : this){
             DexClass result = dexFile.getDexClass(key);
             if(result != null){
@@ -388,31 +385,27 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
         for(DexFile dexFile : this){
             dexFile.clearPoolMap(sectionType);
         }
+        getClassIndex().invalidate();
     }
     @Override
     public void clearPoolMap(){
         for(DexFile dexFile : this){
             dexFile.clearPoolMap();
         }
+        getClassIndex().invalidate();
     }
     public void sortStrings(){
-        for(DexFile dexFile : this){
-            dexFile.sortStrings();
-        }
+        runEach(DexFile::sortStrings);
     }
     @Override
     public void refreshFull() {
-        for(DexFile dexFile : this){
-            dexFile.setDexDirectory(this);
-            dexFile.refreshFull();
-        }
+        updateDexFileList();
+        runEach(DexFile::refreshFull);
     }
     @Override
     public void refresh(){
-        for(DexFile dexFile : this){
-            dexFile.setDexDirectory(this);
-            dexFile.refresh();
-        }
+        updateDexFileList();
+        runEach(DexFile::refresh);
     }
     public void updateDexFileList(){
         for(DexFile dexFile : this){
@@ -505,7 +498,8 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
     boolean renameTypes(StringId stringId, KeyPair<TypeKey, TypeKey> pair, boolean renameInner, boolean renameJava){
         boolean renamed = renameTypeString(stringId, pair, renameInner, renameJava);
         if(renamed){
-            DexClass dexClass = getDexClass(stringId.getString());
+            getClassIndex().invalidate();
+            DexClass dexClass = searchDexClass(TypeKey.create(stringId.getString()));
             if(dexClass != null){
                 dexClass.fixDalvikInnerClassName();
             }
@@ -729,27 +723,11 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
     }
     @Override
     public Iterator<DexClass> searchExtending(TypeKey typeKey){
-        UniqueIterator<DexClass> iterator = new UniqueIterator<>(
-                new IterableIterator<DexFile, DexClass>(iterator()) {
-                    @Override
-                    public Iterator<DexClass> iterator(DexFile element) {
-                        return element.getExtendingClasses(typeKey);
-                    }
-                });
-        iterator.exclude(getDexClass(typeKey));
-        return iterator;
+        return getClassIndex().getExtendingClasses(typeKey);
     }
     @Override
     public Iterator<DexClass> searchImplementations(TypeKey typeKey){
-        UniqueIterator<DexClass> iterator = new UniqueIterator<>(
-                new IterableIterator<DexFile, DexClass>(iterator()) {
-                    @Override
-                    public Iterator<DexClass> iterator(DexFile element) {
-                        return element.getImplementClasses(typeKey);
-                    }
-                });
-        iterator.exclude(getDexClass(typeKey));
-        return iterator;
+        return getClassIndex().getImplementClasses(typeKey);
     }
 
     public int distributeClasses(int maxClassesPerDex) {
@@ -859,6 +837,81 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
             dexFile.writeSmali(writer, root);
         }
     }
+    public void writeSmali(SmaliWriter writer, File root, int threadCount) throws IOException {
+        WorkerPool workerPool = new WorkerPool(threadCount);
+        try {
+            writeSmali(writer, root, workerPool);
+        } finally {
+            workerPool.close();
+        }
+    }
+    public void writeSmali(SmaliWriter writer, File root, WorkerPool workerPool) throws IOException {
+        for(DexFile dexFile : this){
+            dexFile.writeSmali(writer, root, workerPool);
+        }
+    }
+
+    /**
+     * Each dex file has its own layout, thus shrink, clearUnused, clearDuplicateData,
+     * sortStrings, refresh and save run one task per dex file on this pool
+     * */
+    public WorkerPool getWorkerPool() {
+        WorkerPool workerPool = this.workerPool;
+        if(workerPool == null){
+            workerPool = WorkerPool.serial();
+            this.workerPool = workerPool;
+        }
+        return workerPool;
+    }
+    public void setWorkerPool(WorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+    public void setThreadCount(int threadCount) {
+        setWorkerPool(new WorkerPool(threadCount));
+    }
+    public void setExecutor(Executor executor) {
+        setWorkerPool(new WorkerPool(executor));
+    }
+    private int sumEach(ToIntFunction<DexFile> function){
+        WorkerPool workerPool = getWorkerPool();
+        if(!workerPool.isParallel()){
+            int result = 0;
+            for(DexFile dexFile : this){
+                result += function.applyAsInt(dexFile);
+            }
+            return result;
+        }
+        List<Callable<Integer>> tasks = new ArrayList<>(size());
+        for(DexFile dexFile : this){
+            tasks.add(() -> function.applyAsInt(dexFile));
+        }
+        List<Integer> results;
+        try {
+            results = workerPool.invokeAll(tasks);
+        } catch (IOException exception) {
+            // tasks do not throw checked exceptions
+            throw new IllegalStateException(exception);
+        }
+        int result = 0;
+        for(Integer count : results){
+            result += count;
+        }
+        return result;
+    }
+    private void runEach(Consumer<DexFile> consumer){
+        WorkerPool workerPool = getWorkerPool();
+        if(!workerPool.isParallel()){
+            for(DexFile dexFile : this){
+                consumer.accept(dexFile);
+            }
+            return;
+        }
+        List<Runnable> tasks = new ArrayList<>(size());
+        for(DexFile dexFile : this){
+            tasks.add(() -> consumer.accept(dexFile));
+        }
+        workerPool.runAll(tasks);
+    }
 
     @Override
     public String toString() {
@@ -16,6 +16,7 @@
 package com.reandroid.dex.model;
 
 import com.reandroid.arsc.io.BlockReader;
+import com.reandroid.arsc.io.ByteBufferBlockReader;
 import com.reandroid.common.Origin;
 import com.reandroid.dex.base.DexException;
 import com.reandroid.dex.common.AccessFlag;
@@ -33,15 +34,21 @@ import com.reandroid.dex.pool.DexSectionPool;
 import com.reandroid.dex.sections.*;
 import com.reandroid.dex.smali.SmaliReader;
 import com.reandroid.dex.smali.SmaliWriter;
+import com.reandroid.dex.smali.SmaliWriterSetting;
 import com.reandroid.dex.smali.model.SmaliClass;
+import com.reandroid.utils.NumbersUtil;
 import com.reandroid.utils.collection.*;
+import com.reandroid.utils.concurrent.WorkerPool;
 import com.reandroid.utils.io.FileByteSource;
 import com.reandroid.utils.io.FileIterator;
 import com.reandroid.utils.io.FileUtil;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.Predicate;
 
 public class DexFile implements DexClassRepository, Closeable,
@@ -99,7 +106,14 @@ public class DexFile implements DexClassRepository, Closeable,
         return dexDirectory;
     }
     public void setDexDirectory(DexDirectory dexDirectory) {
+        DexDirectory previous = this.dexDirectory;
         this.dexDirectory = dexDirectory;
+        if(previous != dexDirectory){
+            if(previous != null){
+                previous.getClassIndex().invalidate();
+            }
+            onClassesChanged();
+        }
         DexLayout dexLayout = getDexLayout();
         dexLayout.setTag(this);
         dexLayout.setSimpleName(getSimpleName());
@@ -132,7 +146,9 @@ public class DexFile implements DexClassRepository, Closeable,
             return dexClass;
         }
         ClassId classId = getOrCreateClassId(key);
-        return create(classId);
+        dexClass = create(classId);
+        onClassAdded(dexClass);
+        return dexClass;
     }
     public DexSource<DexFile> getSource(){
         DexDirectory directory = getDexDirectory();
@@ -153,20 +169,59 @@ public class DexFile implements DexClassRepository, Closeable,
     }
     @Override
     public boolean removeClasses(Predicate<? super DexClass> filter){
-        Predicate<ClassId> classIdFilter = classId -> filter.test(DexFile.this.create(classId));
-        return getDexLayout().removeEntries(SectionType.CLASS_ID, classIdFilter);
+        DexDirectory directory = getDexDirectory();
+        if(directory == null){
+            return getDexLayout().removeEntries(SectionType.CLASS_ID,
+                    classId -> filter.test(DexFile.this.create(classId)));
+        }
+        DexClassIndex classIndex = directory.getClassIndex();
+        Predicate<ClassId> classIdFilter = classId -> {
+            DexClass dexClass = DexFile.this.create(classId);
+            if(filter.test(dexClass)){
+                classIndex.onRemoving(dexClass);
+                return true;
+            }
+            return false;
+        };
+        boolean removed = getDexLayout().removeEntries(SectionType.CLASS_ID, classIdFilter);
+        classIndex.onRemoved();
+        return removed;
     }
     @Override
     public <T1 extends SectionItem> boolean removeEntries(SectionType<T1> sectionType, Predicate<T1> filter){
-        return getDexLayout().removeEntries(sectionType, filter);
+        boolean removed = getDexLayout().removeEntries(sectionType, filter);
+        if(removed && sectionType == SectionType.CLASS_ID){
+            onClassesChanged();
+        }
+        return removed;
     }
     @Override
     public <T1 extends SectionItem> boolean removeEntriesWithKey(SectionType<T1> sectionType, Predicate<? super Key> filter) {
-        return getDexLayout().removeWithKeys(sectionType, filter);
+        boolean removed = getDexLayout().removeWithKeys(sectionType, filter);
+        if(removed && sectionType == SectionType.CLASS_ID){
+            onClassesChanged();
+        }
+        return removed;
     }
     @Override
     public <T1 extends SectionItem> boolean removeEntry(SectionType<T1> sectionType, Key key){
-        return getDexLayout().removeWithKey(sectionType, key);
+        boolean removed = getDexLayout().removeWithKey(sectionType, key);
+        if(removed && sectionType == SectionType.CLASS_ID){
+            onClassesChanged();
+        }
+        return removed;
+    }
+    void onClassAdded(DexClass dexClass){
+        DexDirectory directory = getDexDirectory();
+        if(directory != null){
+            directory.getClassIndex().onMerged(dexClass);
+        }
+    }
+    void onClassesChanged(){
+        DexDirectory directory = getDexDirectory();
+        if(directory != null){
+            directory.getClassIndex().invalidate();
+        }
     }
     @Override
     public int getDexClassesCount() {
@@ -337,34 +392,102 @@ public class DexFile implements DexClassRepository, Closeable,
         return merge(new DexMergeOptions(true), classId);
     }
     public boolean merge(MergeOptions options, ClassId classId){
-        return getDexLayout().merge(options, classId);
+        if(!getDexLayout().merge(options, classId)){
+            return false;
+        }
+        DexClass merged = getDexClass(classId.getKey());
+        if(merged != null){
+            onClassAdded(merged);
+        }else {
+            onClassesChanged();
+        }
+        return true;
     }
     public boolean merge(MergeOptions options, DexFile dexFile){
         if(dexFile == null || dexFile.isEmpty()){
             return false;
         }
-        return getDexLayout().merge(options, dexFile.getDexLayout());
+        boolean merged = getDexLayout().merge(options, dexFile.getDexLayout());
+        onClassesChanged();
+        dexFile.onClassesChanged();
+        return merged;
     }
     public void parseSmaliDirectory(File dir) throws IOException {
+        parseSmaliDirectory(dir, WorkerPool.serial());
+    }
+    public void parseSmaliDirectory(File dir, int threadCount) throws IOException {
+        WorkerPool workerPool = new WorkerPool(threadCount);
+        try {
+            parseSmaliDirectory(dir, workerPool);
+        } finally {
+            workerPool.close();
+        }
+    }
+    /**
+     * Smali files are parsed on the worker pool in batches, each batch is then
+     * added to this dex on the caller thread in file iteration order
+     * */
+    public void parseSmaliDirectory(File dir, WorkerPool workerPool) throws IOException {
         requireNotClosed();
         if(!dir.isDirectory()){
             throw new FileNotFoundException("No such directory: " + dir);
         }
         FileIterator iterator = new FileIterator(dir, FileIterator.getExtensionFilter(".smali"));
-        FileByteSource byteSource = new FileByteSource();
-        SmaliReader reader = new SmaliReader(byteSource);
         DexLayout layout = getDexLayout();
+        if(!workerPool.isParallel()){
+            FileByteSource byteSource = new FileByteSource();
+            SmaliReader reader = new SmaliReader(byteSource);
+            while (iterator.hasNext()) {
+                layout.fromSmali(parseSmali(byteSource, reader, iterator.next()));
+            }
+            onClassesChanged();
+            shrink();
+            return;
+        }
+        int batchSize = workerPool.getThreadCount() * SMALI_BATCH_PER_THREAD;
+        List<File> batch = new ArrayList<>(batchSize);
         while (iterator.hasNext()) {
-            reader.reset();
-            File file = iterator.next();
-            byteSource.setFile(file);
-            reader.setOrigin(Origin.createNew(file));
-            SmaliClass smaliClass = new SmaliClass();
-            smaliClass.parse(reader);
-            layout.fromSmali(smaliClass);
+            batch.add(iterator.next());
+            if(batch.size() == batchSize || !iterator.hasNext()) {
+                for(SmaliClass smaliClass : parseSmaliFiles(workerPool, batch)) {
+                    layout.fromSmali(smaliClass);
+                }
+                batch.clear();
+            }
         }
+        onClassesChanged();
         shrink();
     }
+    private static List<SmaliClass> parseSmaliFiles(WorkerPool workerPool, List<File> files) throws IOException {
+        int size = files.size();
+        int threads = NumbersUtil.min(workerPool.getThreadCount(), size);
+        List<Callable<List<SmaliClass>>> tasks = new ArrayList<>(threads);
+        for(int i = 0; i < threads; i++) {
+            List<File> part = files.subList(size * i / threads, size * (i + 1) / threads);
+            tasks.add(() -> {
+                FileByteSource byteSource = new FileByteSource();
+                SmaliReader reader = new SmaliReader(byteSource);
+                List<SmaliClass> results = new ArrayList<>(part.size());
+                for(File file : part) {
+                    results.add(parseSmali(byteSource, reader, file));
+                }
+                return results;
+            });
+        }
+        List<SmaliClass> results = new ArrayList<>(size);
+        for(List<SmaliClass> list : workerPool.invokeAll(tasks)) {
+            results.addAll(list);
+        }
+        return results;
+    }
+    private static SmaliClass parseSmali(FileByteSource byteSource, SmaliReader reader, File file) throws IOException {
+        reader.reset();
+        byteSource.setFile(file);
+        reader.setOrigin(Origin.createNew(file));
+        SmaliClass smaliClass = new SmaliClass();
+        smaliClass.parse(reader);
+        return smaliClass;
+    }
     public void parseSmaliFile(File file) throws IOException {
         requireNotClosed();
         fromSmali(SmaliReader.of(file));
@@ -387,6 +510,7 @@ public class DexFile implements DexClassRepository, Closeable,
     public DexClass fromSmali(SmaliClass smaliClass) throws IOException {
         requireNotClosed();
         ClassId classId = getDexLayout().fromSmali(smaliClass);
+        onClassesChanged();
         return create(classId);
     }
 
@@ -401,14 +525,16 @@ public class DexFile implements DexClassRepository, Closeable,
     }
     public void write(File file) throws IOException {
         requireNotClosed();
-        OutputStream outputStream = FileUtil.outputStream(file);;
+        OutputStream outputStream = new BufferedOutputStream(FileUtil.outputStream(file));
         write(outputStream);
         outputStream.close();
     }
     public void write(OutputStream outputStream) throws IOException {
         requireNotClosed();
-        byte[] bytes = getBytes();
-        outputStream.write(bytes, 0, bytes.length);
+        if(isEmpty()){
+            return;
+        }
+        getDexLayout().writeBytes(outputStream);
     }
 
     public String printSectionInfo(){
@@ -421,6 +547,49 @@ public class DexFile implements DexClassRepository, Closeable,
             dexClass.writeSmali(writer, dir);
         }
     }
+    public void writeSmali(SmaliWriter writer, File root, int threadCount) throws IOException {
+        WorkerPool workerPool = new WorkerPool(threadCount);
+        try {
+            writeSmali(writer, root, workerPool);
+        } finally {
+            workerPool.close();
+        }
+    }
+    /**
+     * Each worker writes its share of classes with its own SmaliWriter, all sharing
+     * the SmaliWriterSetting of the given writer. Output is the same as the serial writeSmali.
+     * */
+    public void writeSmali(SmaliWriter writer, File root, WorkerPool workerPool) throws IOException {
+        if(!workerPool.isParallel()){
+            writeSmali(writer, root);
+            return;
+        }
+        requireNotClosed();
+        File dir = new File(root, buildSmaliDirectoryName());
+        List<DexClass> classList = new ArrayList<>();
+        for(DexClass dexClass : this){
+            classList.add(dexClass);
+        }
+        writeSmali(workerPool, writer.getWriterSetting(), classList, dir);
+    }
+    private static void writeSmali(WorkerPool workerPool, SmaliWriterSetting setting,
+                                   List<DexClass> classList, File dir) throws IOException {
+        int size = classList.size();
+        int count = NumbersUtil.min(workerPool.getThreadCount() * 4, size);
+        List<Callable<Object>> tasks = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            List<DexClass> part = classList.subList(size * i / count, size * (i + 1) / count);
+            tasks.add(() -> {
+                SmaliWriter smaliWriter = new SmaliWriter();
+                smaliWriter.setWriterSetting(setting);
+                for(DexClass dexClass : part) {
+                    dexClass.writeSmali(smaliWriter, dir);
+                }
+                return null;
+            });
+        }
+        workerPool.invokeAll(tasks);
+    }
     public String buildSmaliDirectoryName() {
         DexDirectory dexDirectory = getDexDirectory();
         if(dexDirectory == null) {
@@ -464,6 +633,7 @@ public class DexFile implements DexClassRepository, Closeable,
         if(!closed){
             closed = true;
             getDexLayout().clear();
+            onClassesChanged();
         }
     }
 
@@ -494,14 +664,30 @@ public class DexFile implements DexClassRepository, Closeable,
     public static DexFile read(byte[] dexBytes) throws IOException {
         return read(new BlockReader(dexBytes));
     }
+    public static DexFile read(byte[] dexBytes, boolean lazyDecode) throws IOException {
+        return read(new BlockReader(dexBytes), lazyDecode);
+    }
     public static DexFile read(InputStream inputStream) throws IOException {
         return read(new BlockReader(inputStream));
     }
+    public static DexFile read(InputStream inputStream, boolean lazyDecode) throws IOException {
+        return read(new BlockReader(inputStream), lazyDecode);
+    }
     public static DexFile read(File file) throws IOException {
         return read(new BlockReader(file));
     }
+    public static DexFile read(ByteBuffer byteBuffer) throws IOException {
+        return read(new ByteBufferBlockReader(byteBuffer));
+    }
     public static DexFile read(BlockReader reader) throws IOException {
+        return read(reader, false);
+    }
+    /**
+     * Same as read(BlockReader), see DexLayout.setLazyDecode(boolean)
+     * */
+    public static DexFile read(BlockReader reader, boolean lazyDecode) throws IOException {
         DexLayout dexLayout = new DexLayout();
+        dexLayout.setLazyDecode(lazyDecode);
         dexLayout.readBytes(reader);
         reader.close();
         return new DexFile(dexLayout);
@@ -581,4 +767,6 @@ public class DexFile implements DexClassRepository, Closeable,
         }
         return "classes" + i + ".dex";
     }
+
+    private static final int SMALI_BATCH_PER_THREAD = 64;
 }
@@ -20,18 +20,23 @@ import com.reandroid.archive.ZipEntryMap;
 import com.reandroid.utils.CompareUtil;
 import com.reandroid.utils.collection.ArrayCollection;
 import com.reandroid.utils.collection.ComputeIterator;
+import com.reandroid.utils.concurrent.WorkerPool;
 import com.reandroid.utils.io.FileUtil;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.Predicate;
 
 public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable {
 
     private final ArrayCollection<DexSource<DexFile>> sourceList;
     private boolean mReadStringsMode;
+    private boolean mLazyDecode;
     private ZipEntryMap zipEntryMap;
 
     public DexFileSourceSet(){
@@ -72,6 +77,10 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
         }
     }
     public void saveAll(File dir) throws IOException {
+        saveAll(dir, WorkerPool.serial());
+    }
+    public void saveAll(File dir, WorkerPool workerPool) throws IOException {
+        List<DexSource<DexFile>> saveList = new ArrayList<>(sourceList.size());
         Iterator<DexSource<DexFile>> iterator = sourceList.clonedIterator();
         while (iterator.hasNext()){
             DexSource<DexFile> source = iterator.next();
@@ -81,24 +90,73 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
             if(isEmpty(dexSource)){
                 dexSource.delete();
             }else {
-                dexSource.write(source.get().getBytes());
+                saveList.add(dexSource);
             }
         }
+        write(saveList, workerPool);
     }
     public void saveAll() throws IOException {
+        saveAll(WorkerPool.serial());
+    }
+    public void saveAll(WorkerPool workerPool) throws IOException {
+        List<DexSource<DexFile>> saveList = new ArrayList<>(sourceList.size());
         Iterator<DexSource<DexFile>> iterator = sourceList.clonedIterator();
         while (iterator.hasNext()){
-            save(iterator.next());
+            DexSource<DexFile> source = iterator.next();
+            if(isEmpty(source)){
+                delete(source);
+            }else {
+                saveList.add(source);
+            }
         }
+        write(saveList, workerPool);
     }
     private void save(DexSource<DexFile> source) throws IOException {
         if(isEmpty(source)){
             delete(source);
             return;
         }
+        write(source);
+    }
+    private void write(List<DexSource<DexFile>> saveList, WorkerPool workerPool) throws IOException {
+        if(!workerPool.isParallel()){
+            for(DexSource<DexFile> source : saveList){
+                write(source);
+            }
+            return;
+        }
+        // files are written by workers, zip entries are added in order by the caller thread
+        List<Callable<byte[]>> tasks = new ArrayList<>(saveList.size());
+        for(DexSource<DexFile> source : saveList){
+            tasks.add(() -> {
+                if(isFileSource(source)){
+                    write(source);
+                    return null;
+                }
+                return source.get().getBytes();
+            });
+        }
+        List<byte[]> results = workerPool.invokeAll(tasks);
+        int size = results.size();
+        for(int i = 0; i < size; i++){
+            byte[] bytes = results.get(i);
+            if(bytes != null){
+                saveList.get(i).write(bytes);
+            }
+        }
+    }
+    private void write(DexSource<DexFile> source) throws IOException {
         DexFile dexFile = source.get();
+        if(isFileSource(source)){
+            // stream directly to file, avoids building whole dex bytes
+            dexFile.write(((DexSource.FileDexSource<?>) source).getFile());
+            return;
+        }
         source.write(dexFile.getBytes());
     }
+    private static boolean isFileSource(DexSource<?> source){
+        return source instanceof DexSource.FileDexSource && !source.isClosed();
+    }
     private boolean isEmpty(DexSource<DexFile> source){
         DexFile dexFile = source.get();
         return dexFile == null || dexFile.isEmpty();
@@ -280,6 +338,16 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
     public void setReadStringsMode(boolean readStringsMode) {
         this.mReadStringsMode = readStringsMode;
     }
+    public boolean isLazyDecode() {
+        return mLazyDecode;
+    }
+    /**
+     * Dex files loaded after this call decode code on first access,
+     * see DexLayout.setLazyDecode(boolean)
+     * */
+    public void setLazyDecode(boolean lazyDecode) {
+        this.mLazyDecode = lazyDecode;
+    }
     private void load(DexSource<DexFile> dexSource) throws IOException {
         DexFile dexFile = dexSource.get();
         if(dexFile != null){
@@ -288,7 +356,7 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
         if(mReadStringsMode){
             dexFile = DexFile.readStrings(dexSource.openStream());
         }else {
-            dexFile = DexFile.read(dexSource.openStream());
+            dexFile = DexFile.read(dexSource.openStream(), mLazyDecode);
         }
         dexSource.set(dexFile);
         dexFile.setSimpleName(dexSource.toString());
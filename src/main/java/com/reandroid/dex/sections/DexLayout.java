@@ -32,6 +32,7 @@ import com.reandroid.dex.smali.model.SmaliClass;
 import com.reandroid.utils.collection.*;
 import com.reandroid.utils.io.FileUtil;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -49,6 +50,7 @@ public class DexLayout extends FixedBlockContainer implements FullRefresh {
     private final MultiMap<TypeKey, ClassId> interfaceMap;
 
     private Object mTag;
+    private boolean mLazyDecode;
 
     public DexLayout() {
         super(1);
@@ -313,12 +315,22 @@ public class DexLayout extends FixedBlockContainer implements FullRefresh {
         reader.close();
     }
     public void write(File file) throws IOException {
-        OutputStream outputStream = FileUtil.outputStream(file);
+        OutputStream outputStream = new BufferedOutputStream(FileUtil.outputStream(file));
         writeBytes(outputStream);
         outputStream.close();
     }
 
 
+    public boolean isLazyDecode() {
+        return mLazyDecode;
+    }
+    /**
+     * When true, instruction lists keep raw code units and decode to Ins on first access,
+     * untouched code is written back with only id indexes patched. Must be set before reading bytes.
+     * */
+    public void setLazyDecode(boolean lazyDecode) {
+        this.mLazyDecode = lazyDecode;
+    }
     public Object getTag() {
         return mTag;
     }
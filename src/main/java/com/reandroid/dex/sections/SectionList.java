@@ -16,6 +16,7 @@
 package com.reandroid.dex.sections;
 
 import com.reandroid.arsc.base.Block;
+import com.reandroid.arsc.base.BlockRefresh;
 import com.reandroid.arsc.base.OffsetSupplier;
 import com.reandroid.arsc.container.BlockList;
 import com.reandroid.arsc.container.FixedBlockContainer;
@@ -24,6 +25,7 @@ import com.reandroid.arsc.item.IntegerReference;
 import com.reandroid.arsc.item.NumberIntegerReference;
 import com.reandroid.common.ArraySupplier;
 import com.reandroid.dex.base.BlockListArray;
+import com.reandroid.dex.base.UsageMarker;
 import com.reandroid.dex.common.FullRefresh;
 import com.reandroid.dex.common.SectionItem;
 import com.reandroid.dex.common.SectionTool;
@@ -56,6 +58,7 @@ public class SectionList extends FixedBlockContainer
     private final MapList mapList;
 
     private boolean mReading;
+    private ArrayDeque<SectionItem> mUsedQueue;
 
     public SectionList() {
         super(4);
@@ -91,25 +94,84 @@ public class SectionList extends FixedBlockContainer
     }
 
     public int shrink(){
-        int result = 0;
-        while (true) {
-            int count = clearUnused();
-            if(count == 0){
-                break;
-            }
-            result += count;
-        }
+        int result = clearUnreachable();
         while (true) {
             int count = clearDuplicateData();
             if(count == 0){
                 break;
             }
             result += count;
-            result += clearUnused();
+            result += clearUnreachable();
         }
         result += clearEmptySections();
         return result;
     }
+    /**
+     * Removes items that can not be reached from the root sections, i.e. sections
+     * not in remove order. Root items are refreshed first, refreshing an item marks
+     * its references as used, and each newly used item is queued and refreshed once
+     * in turn. Unlike repeating clearUnused(), items referenced only from other
+     * unreachable items (e.g. a cycle) are removed too. Ends with a single refresh.
+     * */
+    int clearUnreachable(){
+        clearUsageTypes();
+        SectionType<?>[] removeOrder = SectionType.getRemoveOrderList();
+        Set<Block> removableArrays = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Section<?>> removable = new ArrayList<>(removeOrder.length);
+        for(SectionType<?> sectionType : removeOrder){
+            Section<?> section = getSection(sectionType);
+            if(section != null){
+                removable.add(section);
+                removableArrays.add(section.getItemArray());
+            }
+        }
+        ArrayDeque<SectionItem> usedQueue = new ArrayDeque<>();
+        this.mUsedQueue = usedQueue;
+        try {
+            Iterator<Section<?>> iterator = getSections();
+            while (iterator.hasNext()){
+                Section<?> section = iterator.next();
+                if(!removableArrays.contains(section.getItemArray())){
+                    refreshItems(section);
+                }
+            }
+            Set<SectionItem> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            SectionItem item;
+            while ((item = usedQueue.poll()) != null){
+                if(item instanceof BlockRefresh && removableArrays.contains(item.getParent())
+                        && visited.add(item)){
+                    ((BlockRefresh) item).refresh();
+                }
+            }
+        } finally {
+            this.mUsedQueue = null;
+        }
+        int result = 0;
+        for(Section<?> section : removable){
+            result += section.clearUnused();
+        }
+        refresh();
+        return result;
+    }
+    private static void refreshItems(Section<?> section){
+        int size = section.getCount();
+        for(int i = 0; i < size; i++){
+            SectionItem item = section.get(i);
+            if(item instanceof BlockRefresh){
+                ((BlockRefresh) item).refresh();
+            }
+        }
+    }
+    /**
+     * Called by SectionItem once its usage changes from none, queues the item
+     * while clearUnreachable is running
+     * */
+    public void onUsedInternal(SectionItem item){
+        ArrayDeque<SectionItem> usedQueue = this.mUsedQueue;
+        if(usedQueue != null){
+            usedQueue.add(item);
+        }
+    }
     public int clearDuplicateData(){
         refresh();
         int result = 0;
@@ -15,21 +15,31 @@
  */
 package com.reandroid.dex.tools;
 
+import com.reandroid.dex.common.SectionItem;
+import com.reandroid.dex.id.ClassId;
 import com.reandroid.dex.id.FieldId;
 import com.reandroid.dex.id.MethodId;
 import com.reandroid.dex.key.FieldKey;
+import com.reandroid.dex.key.Key;
 import com.reandroid.dex.key.MethodKey;
+import com.reandroid.dex.key.TypeKey;
 import com.reandroid.dex.model.DexClass;
 import com.reandroid.dex.model.DexClassRepository;
+import com.reandroid.dex.sections.Section;
 import com.reandroid.dex.sections.SectionType;
+import com.reandroid.utils.concurrent.WorkerPool;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class DexValidator {
 
     private final DexClassRepository classRepository;
+    private WorkerPool workerPool;
 
     public DexValidator(DexClassRepository classRepository) {
         this.classRepository = classRepository;
@@ -37,35 +47,108 @@ public class DexValidator {
 
     public Set<FieldKey> findMissingOrInaccessibleFields() {
         Set<FieldKey> results = new HashSet<>();
-        DexClassRepository classRepository = getClassRepository();
-        Iterator<FieldId> iterator = classRepository.getItems(SectionType.FIELD_ID);
-        while (iterator.hasNext()) {
-            FieldKey key = iterator.next().getKey();
-            if(results.contains(key)) {
-                continue;
-            }
-            DexClass declaring = classRepository.getDexClass(key.getDeclaring());
-            if(declaring != null && declaring.getField(key) == null) {
-                results.add(key);
-            }
-        }
+        findMissingOrInaccessibleFields(results::add);
         return results;
     }
+    /**
+     * Reports each missing or inaccessible field once as soon as it is found, the consumer
+     * is never called concurrently but the order is unspecified when running in parallel
+     * */
+    public void findMissingOrInaccessibleFields(Consumer<? super FieldKey> consumer) {
+        find(SectionType.FIELD_ID, FieldId::getKey,
+                (declaring, key) -> declaring.getField(key) == null, consumer);
+    }
     public Set<MethodKey> findMissingOrInaccessibleMethods() {
         Set<MethodKey> results = new HashSet<>();
+        findMissingOrInaccessibleMethods(results::add);
+        return results;
+    }
+    /**
+     * Same as findMissingOrInaccessibleFields(Consumer) for methods
+     * */
+    public void findMissingOrInaccessibleMethods(Consumer<? super MethodKey> consumer) {
+        find(SectionType.METHOD_ID, MethodId::getKey,
+                (declaring, key) -> declaring.getMethod(key) == null, consumer);
+    }
+
+    private<T extends SectionItem, K extends Key> void find(SectionType<T> sectionType,
+                                                            Function<T, K> keyFunction,
+                                                            BiPredicate<DexClass, K> missing,
+                                                            Consumer<? super K> consumer) {
         DexClassRepository classRepository = getClassRepository();
-        Iterator<MethodId> iterator = classRepository.getItems(SectionType.METHOD_ID);
-        while (iterator.hasNext()) {
-            MethodKey key = iterator.next().getKey();
-            if(results.contains(key)) {
-                continue;
+        WorkerPool workerPool = getWorkerPool();
+        if(!workerPool.isParallel()) {
+            Set<K> checked = new HashSet<>();
+            Iterator<T> iterator = classRepository.getItems(sectionType);
+            while (iterator.hasNext()) {
+                check(keyFunction.apply(iterator.next()), checked, missing, consumer);
             }
-            DexClass declaring = classRepository.getDexClass(key.getDeclaring());
-            if(declaring != null && declaring.getMethod(key) == null) {
-                results.add(key);
+            return;
+        }
+        List<T> itemList = new ArrayList<>();
+        Iterator<T> iterator = classRepository.getItems(sectionType);
+        while (iterator.hasNext()) {
+            itemList.add(iterator.next());
+        }
+        loadClassPools();
+        Set<K> checked = ConcurrentHashMap.newKeySet(itemList.size());
+        Consumer<K> synchronizedConsumer = key -> {
+            synchronized (consumer) {
+                consumer.accept(key);
             }
+        };
+        int size = itemList.size();
+        int partitions = Math.min(size, workerPool.getThreadCount() * 4);
+        List<Runnable> tasks = new ArrayList<>(partitions);
+        for(int i = 0; i < partitions; i++) {
+            List<T> partition = itemList.subList(size * i / partitions, size * (i + 1) / partitions);
+            tasks.add(() -> {
+                for(T item : partition) {
+                    check(keyFunction.apply(item), checked, missing, synchronizedConsumer);
+                }
+            });
         }
-        return results;
+        workerPool.runAll(tasks);
+    }
+    private<K extends Key> void check(K key, Set<K> checked, BiPredicate<DexClass, K> missing,
+                                      Consumer<? super K> consumer) {
+        if(!checked.add(key)) {
+            return;
+        }
+        DexClass declaring = getClassRepository().getDexClass(key.getDeclaring());
+        if(declaring != null && missing.test(declaring, key)) {
+            consumer.accept(key);
+        }
+    }
+    // class pools are lazily loaded on first lookup, load them before sharing across threads
+    private void loadClassPools() {
+        DexClassRepository classRepository = getClassRepository();
+        Iterator<Section<ClassId>> iterator = classRepository.getSections(SectionType.CLASS_ID);
+        while (iterator.hasNext()) {
+            iterator.next().getPool();
+        }
+        classRepository.getDexClass(TypeKey.OBJECT);
+    }
+
+    /**
+     * Field and method ids are partitioned and checked on this pool, by default serial
+     * */
+    public WorkerPool getWorkerPool() {
+        WorkerPool workerPool = this.workerPool;
+        if(workerPool == null) {
+            workerPool = WorkerPool.serial();
+            this.workerPool = workerPool;
+        }
+        return workerPool;
+    }
+    public void setWorkerPool(WorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+    public void setThreadCount(int threadCount) {
+        setWorkerPool(new WorkerPool(threadCount));
+    }
+    public void setExecutor(Executor executor) {
+        setWorkerPool(new WorkerPool(executor));
     }
 
     private DexClassRepository getClassRepository() {
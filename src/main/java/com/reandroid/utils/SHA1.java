@@ -15,6 +15,15 @@
  */
 package com.reandroid.utils;
 
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-1 digest, delegates to platform MessageDigest when available (several times faster
+ * on JVMs with SHA intrinsics) and falls back to the pure java implementation otherwise
+ * */
 public class SHA1 {
 
     private static final int round1_kt = 0x5A827999;
@@ -29,8 +38,13 @@ public class SHA1 {
     private final byte[] buffer;
     private int bufferOffset;
     private long bytesProcessed;
+    private final MessageDigest messageDigest;
 
     public SHA1() {
+        this(true);
+    }
+    public SHA1(boolean usePlatform) {
+        this.messageDigest = usePlatform ? newMessageDigest() : null;
         this.padding = new byte[136];
         this.buffer = new byte[64];
         this.WORD = new int[80];
@@ -46,6 +60,11 @@ public class SHA1 {
         this.update(this.oneByte, 0, 1);
     }
     public void update(byte[] bytes, int offset, int length) {
+        MessageDigest messageDigest = this.messageDigest;
+        if (messageDigest != null) {
+            messageDigest.update(bytes, offset, length);
+            return;
+        }
         if (this.bytesProcessed < 0L) {
             this.reset();
         }
@@ -75,7 +94,35 @@ public class SHA1 {
         }
 
     }
+    public void update(ByteBuffer byteBuffer) {
+        MessageDigest messageDigest = this.messageDigest;
+        if (messageDigest != null) {
+            messageDigest.update(byteBuffer);
+            return;
+        }
+        if (byteBuffer.hasArray()) {
+            int position = byteBuffer.position();
+            int length = byteBuffer.remaining();
+            update(byteBuffer.array(), byteBuffer.arrayOffset() + position, length);
+            byteBuffer.position(position + length);
+            return;
+        }
+        byte[] chunk = new byte[NumbersUtil.min(byteBuffer.remaining(), 8192)];
+        while (byteBuffer.hasRemaining()) {
+            int length = NumbersUtil.min(chunk.length, byteBuffer.remaining());
+            byteBuffer.get(chunk, 0, length);
+            update(chunk, 0, length);
+        }
+    }
+    public boolean isPlatform() {
+        return messageDigest != null;
+    }
     public void reset() {
+        MessageDigest messageDigest = this.messageDigest;
+        if (messageDigest != null) {
+            messageDigest.reset();
+            return;
+        }
         if (this.bytesProcessed != 0L) {
             this.resetState();
             fillZero(this.WORD);
@@ -94,6 +141,15 @@ public class SHA1 {
         this.digest(out, 0);
     }
     public void digest(byte[] out, int offset) {
+        MessageDigest messageDigest = this.messageDigest;
+        if (messageDigest != null) {
+            try {
+                messageDigest.digest(out, offset, 20);
+            } catch (DigestException exception) {
+                throw new IllegalArgumentException(exception.getMessage(), exception);
+            }
+            return;
+        }
         if (this.bytesProcessed < 0L) {
             this.reset();
         }
@@ -228,4 +284,12 @@ public class SHA1 {
             arr[i] = (byte) 0;
         }
     }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ignored) {
+            return null;
+        }
+    }
 }
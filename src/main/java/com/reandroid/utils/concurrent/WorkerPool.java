@@ -0,0 +1,281 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.utils.concurrent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent tasks either on the caller thread (thread count <= 1)
+ * or on a bounded pool, always returning results in task order.
+ * The pool threads are created lazily, reused across batches and exit after
+ * being idle for a while; call close() to release them immediately.
+ * */
+public class WorkerPool implements Closeable {
+
+    private final int threadCount;
+    private final Executor executor;
+    private ThreadPoolExecutor mService;
+
+    public WorkerPool(int threadCount){
+        if(threadCount <= 0){
+            threadCount = availableProcessors();
+        }
+        this.threadCount = threadCount;
+        this.executor = null;
+    }
+    public WorkerPool(Executor executor){
+        if(executor == null){
+            throw new NullPointerException("Null executor");
+        }
+        this.threadCount = availableProcessors();
+        this.executor = executor;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+    public Executor getExecutor() {
+        return executor;
+    }
+    public boolean isParallel(){
+        return executor != null || threadCount > 1;
+    }
+
+    public void runAll(List<? extends Runnable> tasks){
+        List<Callable<Object>> callables = new ArrayList<>(tasks.size());
+        for(Runnable runnable : tasks){
+            callables.add(Executors.callable(runnable));
+        }
+        try {
+            invokeAll(callables);
+        } catch (IOException exception) {
+            // runnable can not throw checked exceptions
+            throw new IllegalStateException(exception);
+        }
+    }
+    /**
+     * Runs all tasks and returns their results in task order. If any task fails, tasks not
+     * yet started are skipped and the first failure is thrown only after every started task
+     * has finished, with failures of the others attached as suppressed
+     * */
+    public<T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws IOException {
+        int size = tasks.size();
+        if(size <= 1 || !isParallel()){
+            return invokeSerial(tasks);
+        }
+        Executor executor = this.executor;
+        if(executor == null){
+            executor = getService();
+        }
+        Batch batch = new Batch(size);
+        List<FutureTask<T>> futureList = new ArrayList<>(size);
+        int start = 0;
+        try {
+            for(Callable<T> callable : tasks){
+                FutureTask<T> futureTask = new FutureTask<>(batch.wrap(callable));
+                executor.execute(futureTask);
+                futureList.add(futureTask);
+            }
+            List<T> results = new ArrayList<>(size);
+            for(int i = 0; i < size; i++){
+                start = i + 1;
+                results.add(await(futureList.get(i)));
+            }
+            return results;
+        } catch (IOException | RuntimeException | Error throwable) {
+            // tasks rejected by the executor never run
+            batch.skip(size - futureList.size());
+            batch.cancel();
+            addSuppressed(throwable, futureList, start);
+            throw throwable;
+        }
+    }
+    private synchronized ThreadPoolExecutor getService(){
+        ThreadPoolExecutor service = this.mService;
+        if(service == null){
+            service = newWorkerThreadPool(getThreadCount());
+            this.mService = service;
+        }
+        return service;
+    }
+    /**
+     * Shuts down threads created by this pool, a later batch creates new ones.
+     * Executors given by the caller are never shut down.
+     * */
+    @Override
+    public synchronized void close(){
+        ThreadPoolExecutor service = this.mService;
+        this.mService = null;
+        if(service != null){
+            service.shutdown();
+        }
+    }
+    private<T> List<T> invokeSerial(List<? extends Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        for(Callable<T> callable : tasks){
+            try {
+                results.add(callable.call());
+            } catch (IOException | RuntimeException exception) {
+                throw exception;
+            } catch (Exception exception) {
+                throw new IOException(exception.getMessage(), exception);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        if(executor != null){
+            return "WorkerPool{" + executor + "}";
+        }
+        return "WorkerPool{threads=" + threadCount + "}";
+    }
+
+    /**
+     * Attaches failures of the remaining tasks, all of them must be done
+     * */
+    private static void addSuppressed(Throwable throwable, List<? extends Future<?>> futureList, int start){
+        int size = futureList.size();
+        for(int i = start; i < size; i++){
+            try {
+                futureList.get(i).get();
+            } catch (ExecutionException exception) {
+                Throwable cause = exception.getCause();
+                if(cause != null && cause != throwable && !(cause instanceof CancellationException)){
+                    throwable.addSuppressed(cause);
+                }
+            } catch (InterruptedException | CancellationException ignored) {
+            }
+        }
+    }
+    private static<T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioException = new InterruptedIOException(exception.getMessage());
+            ioException.initCause(exception);
+            throw ioException;
+        } catch (ExecutionException exception) {
+            throw rethrow(exception.getCause());
+        }
+    }
+    private static IOException rethrow(Throwable throwable) throws IOException {
+        if(throwable instanceof IOException){
+            throw (IOException) throwable;
+        }
+        if(throwable instanceof RuntimeException){
+            throw (RuntimeException) throwable;
+        }
+        if(throwable instanceof Error){
+            throw (Error) throwable;
+        }
+        throw new IOException(String.valueOf(throwable), throwable);
+    }
+
+    public static WorkerPool serial(){
+        return new WorkerPool(1);
+    }
+    public static WorkerPool of(int threadCount, Executor executor){
+        if(executor != null){
+            return new WorkerPool(executor);
+        }
+        return new WorkerPool(threadCount);
+    }
+    public static int availableProcessors(){
+        return Runtime.getRuntime().availableProcessors();
+    }
+    public static ExecutorService newFixedThreadPool(int threadCount){
+        return Executors.newFixedThreadPool(threadCount, WORKER_THREAD_FACTORY);
+    }
+    private static ThreadPoolExecutor newWorkerThreadPool(int threadCount){
+        ThreadPoolExecutor service = new ThreadPoolExecutor(threadCount, threadCount,
+                IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), WORKER_THREAD_FACTORY);
+        service.allowCoreThreadTimeOut(true);
+        return service;
+    }
+
+    /**
+     * Tracks completion of one invokeAll batch. Tasks are never interrupted, an interrupted
+     * channel read closes the shared channel, instead tasks not yet started skip themselves
+     * once the batch is cancelled.
+     * */
+    static class Batch {
+
+        private final CountDownLatch mLatch;
+        private volatile boolean mCancelled;
+
+        Batch(int size){
+            this.mLatch = new CountDownLatch(size);
+        }
+
+        <T> Callable<T> wrap(Callable<T> callable){
+            return () -> {
+                try {
+                    if(mCancelled){
+                        throw new CancellationException();
+                    }
+                    return callable.call();
+                } finally {
+                    mLatch.countDown();
+                }
+            };
+        }
+        void skip(int count){
+            for(int i = 0; i < count; i++){
+                mLatch.countDown();
+            }
+        }
+        /**
+         * Skips tasks not yet started and blocks until the running ones finished
+         * */
+        void cancel(){
+            mCancelled = true;
+            boolean interrupted = false;
+            while (true){
+                try {
+                    mLatch.await();
+                    break;
+                } catch (InterruptedException exception) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final long IDLE_TIMEOUT_SECONDS = 30;
+
+    private static final ThreadFactory WORKER_THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger mCount = new AtomicInteger();
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "arsclib-worker-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+}
@@ -0,0 +1,43 @@
+package com.reandroid.apk;
+
+import com.reandroid.TestUtils;
+import com.reandroid.utils.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+public class ApkBundleTest {
+
+    @Test
+    public void testParallelLoad() throws IOException {
+        InputStream inputStream = ApkBundleTest.class
+                .getResourceAsStream("/type_id_offset.apk");
+        byte[] apkBytes = IOUtil.readFully(inputStream);
+        File dir = new File(TestUtils.getTempDir(), "bundle");
+        Assert.assertTrue(dir.isDirectory() || dir.mkdirs());
+        String[] names = new String[]{"base.apk", "split_config.xhdpi.apk", "split_config.en.apk"};
+        for(String name : names){
+            Files.write(new File(dir, name).toPath(), apkBytes);
+        }
+        ApkBundle serial = new ApkBundle();
+        serial.loadApkDirectory(dir);
+        ApkBundle parallel = new ApkBundle();
+        parallel.setThreadCount(3);
+        parallel.loadApkDirectory(dir);
+
+        Assert.assertEquals(serial.listModuleNames(), parallel.listModuleNames());
+        for(ApkModule module : parallel.getModules()){
+            Assert.assertNotNull(module.getLoadedTableBlock());
+        }
+        ApkModule expected = serial.mergeModules();
+        ApkModule merged = parallel.mergeModules();
+        Assert.assertArrayEquals(expected.getTableBlock().getBytes(),
+                merged.getTableBlock().getBytes());
+        serial.close();
+        parallel.close();
+    }
+}
@@ -13,6 +13,11 @@ import org.junit.runners.MethodSorters;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class ApkModuleCoderTest {
@@ -89,6 +94,60 @@ public class ApkModuleCoderTest {
         Assert.assertFalse("Failed to delete: " + mDir_json, mDir_json.exists());
         compare(apkModule, apkModule_encoded);
     }
+    @Test
+    public void e_testParallelDecodeToXml() throws IOException {
+        File dir = TestUtils.getTempDir();
+        File apk = new File(dir, "parallel_decode.apk");
+        getApkModule().writeApk(apk);
+
+        File serialDir = new File(dir, "decode_xml_serial");
+        ApkModule apkModule = ApkModule.loadApkFile(apk);
+        new ApkModuleXmlDecoder(apkModule).decode(serialDir);
+        apkModule.close();
+
+        File parallelDir = new File(dir, "decode_xml_parallel");
+        apkModule = ApkModule.loadApkFile(apk);
+        ApkModuleXmlDecoder decoder = new ApkModuleXmlDecoder(apkModule);
+        decoder.setThreadCount(4);
+        Thread caller = Thread.currentThread();
+        List<String> verboseList = new ArrayList<>();
+        decoder.setApkLogger(new APKLogger() {
+            @Override
+            public void logMessage(String msg) {
+                Assert.assertSame(caller, Thread.currentThread());
+            }
+            @Override
+            public void logError(String msg, Throwable tr) {
+                Assert.assertSame(caller, Thread.currentThread());
+            }
+            @Override
+            public void logVerbose(String msg) {
+                Assert.assertSame(caller, Thread.currentThread());
+                verboseList.add(msg);
+            }
+        });
+        decoder.decode(parallelDir);
+        apkModule.close();
+        Assert.assertFalse(verboseList.isEmpty());
+
+        List<String> pathList = listFiles(serialDir);
+        Assert.assertEquals(pathList, listFiles(parallelDir));
+        for(String path : pathList){
+            Assert.assertArrayEquals(path,
+                    Files.readAllBytes(new File(serialDir, path).toPath()),
+                    Files.readAllBytes(new File(parallelDir, path).toPath()));
+        }
+        FileUtil.deleteDirectory(serialDir);
+        FileUtil.deleteDirectory(parallelDir);
+    }
+    private static List<String> listFiles(File dir) throws IOException {
+        Path root = dir.toPath();
+        List<String> results = new ArrayList<>();
+        Files.walk(root).filter(Files::isRegularFile)
+                .forEach(path -> results.add(root.relativize(path).toString()));
+        Collections.sort(results);
+        return results;
+    }
     private void compare(ApkModule module1, ApkModule module2) throws IOException {
         Assert.assertEquals(module1.getZipEntryMap().size(), module2.getZipEntryMap().size());
 
@@ -3,12 +3,28 @@ package com.reandroid.archive;
 import com.reandroid.apk.ApkModule;
 import com.reandroid.apk.ApkModuleTest;
 import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.TestUtils;
+import com.reandroid.archive.io.ArchiveEntrySource;
+import com.reandroid.archive.io.ChannelInputStream;
+import com.reandroid.archive.writer.ApkByteWriter;
+import com.reandroid.archive.writer.ApkFileWriter;
 import com.reandroid.arsc.chunk.xml.AndroidManifestBlock;
+import com.reandroid.utils.concurrent.WorkerPool;
+import com.reandroid.utils.io.IOUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 public class ApkWriterTest {
     @Test
@@ -40,6 +56,146 @@ public class ApkWriterTest {
         InputSource inputSource = apkModule2.getInputSource("classes.dex");
         Assert.assertNotNull("Missing classes.dex", inputSource);
     }
+    @Test
+    public void testParallelFileWriter() throws IOException {
+        byte[] bytes = getApkModule().writeApkBytes();
+        File dir = TestUtils.getTempDir();
+
+        File serialFile = new File(dir, "writer_serial.apk");
+        ApkModule.readApkBytes(bytes).writeApk(serialFile);
+
+        File parallelFile = new File(dir, "writer_parallel.apk");
+        ApkFileWriter writer = ApkModule.readApkBytes(bytes).createApkFileWriter(parallelFile);
+        writer.setThreadCount(4);
+        writer.write();
+
+        Assert.assertArrayEquals("Parallel compressed apk differs from serial",
+                IOUtil.readFully(serialFile), IOUtil.readFully(parallelFile));
+    }
+    @Test
+    public void testRawEntryPassThrough() throws IOException {
+        byte[] bytes = getApkModule().writeApkBytes();
+        ArchiveBytes source = new ArchiveBytes(bytes);
+        ApkByteWriter writer = new ApkByteWriter(source.getInputSources());
+        writer.write();
+        ArchiveBytes result = new ArchiveBytes(writer.toByteArray());
+        Assert.assertEquals(source.size(), result.size());
+        Iterator<ArchiveEntry> iterator = source.getFiles();
+        while (iterator.hasNext()){
+            ArchiveEntry entry = iterator.next();
+            InputSource inputSource = result.getEntrySource(entry.getName());
+            Assert.assertNotNull("Missing entry: " + entry.getName(), inputSource);
+            ArchiveEntry copied = ((ArchiveEntrySource<?>) inputSource).getArchiveEntry();
+            Assert.assertEquals(entry.getName(), entry.getMethod(), copied.getMethod());
+            Assert.assertEquals(entry.getName(), entry.getCrc(), copied.getCrc());
+            Assert.assertArrayEquals(entry.getName(),
+                    IOUtil.readFully(source.openRawInputStream(entry)),
+                    IOUtil.readFully(result.openRawInputStream(copied)));
+        }
+    }
+    @Test
+    public void testMappedArchiveFile() throws IOException {
+        File file = new File(TestUtils.getTempDir(), "mapped.apk");
+        getApkModule().writeApk(file);
+        ArchiveFile archiveFile = new ArchiveFile(file);
+        ArchiveFile mappedFile = ArchiveFile.openMapped(file);
+        Assert.assertEquals(archiveFile.size(), mappedFile.size());
+        Iterator<ArchiveEntry> iterator = archiveFile.getFiles();
+        while (iterator.hasNext()){
+            ArchiveEntry entry = iterator.next();
+            ArchiveEntry mapped = mappedFile.getEntry(entry.getName());
+            Assert.assertNotNull("Missing entry: " + entry.getName(), mapped);
+            Assert.assertEquals(entry.getDataSize(), mappedFile.getRawByteBuffer(mapped).remaining());
+            Assert.assertArrayEquals(entry.getName(),
+                    IOUtil.readFully(archiveFile.getEntrySource(entry.getName()).openStream()),
+                    IOUtil.readFully(mappedFile.getEntrySource(entry.getName()).openStream()));
+        }
+        Assert.assertNull(mappedFile.getEntrySource("no/such/entry"));
+        archiveFile.close();
+        mappedFile.close();
+    }
+    @Test
+    public void testTruncatedChannelInputStream() throws IOException {
+        File file = new File(TestUtils.getTempDir(), "truncated.bin");
+        Files.write(file.toPath(), new byte[50]);
+        FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        byte[] bytes = new byte[100];
+        ChannelInputStream atEnd = new ChannelInputStream(fileChannel, 50, 100);
+        Assert.assertEquals(-1, atEnd.read(bytes, 0, bytes.length));
+        ChannelInputStream truncated = new ChannelInputStream(fileChannel, 0, 100);
+        try {
+            truncated.read(bytes, 0, bytes.length);
+            Assert.fail("Expecting EOFException");
+        } catch (EOFException ignored) {
+        }
+        fileChannel.close();
+    }
+    @Test
+    public void testGetEntryAfterRename() throws IOException {
+        File file = new File(TestUtils.getTempDir(), "rename_entry.apk");
+        getApkModule().writeApk(file);
+        ArchiveFile archiveFile = new ArchiveFile(file);
+        ArchiveEntry entry = archiveFile.getEntry("resources.arsc");
+        Assert.assertNotNull(entry);
+        entry.setName("renamed.arsc");
+        Assert.assertSame(entry, archiveFile.getEntry("renamed.arsc"));
+        Assert.assertNull(archiveFile.getEntry("resources.arsc"));
+        archiveFile.close();
+    }
+    @Test
+    public void testConcurrentEntryReads() throws IOException {
+        File file = new File(TestUtils.getTempDir(), "concurrent_read.apk");
+        getApkModule().writeApk(file);
+        ArchiveFile archiveFile = new ArchiveFile(file);
+        InputSource[] inputSources = archiveFile.getInputSources();
+        List<byte[]> expected = new ArrayList<>();
+        List<Callable<byte[]>> tasks = new ArrayList<>();
+        for(int repeat = 0; repeat < 8; repeat++){
+            for(InputSource inputSource : inputSources){
+                if(repeat == 0){
+                    expected.add(IOUtil.readFully(inputSource.openStream()));
+                }
+                tasks.add(() -> IOUtil.readFully(inputSource.openStream()));
+            }
+        }
+        List<byte[]> results = new WorkerPool(4).invokeAll(tasks);
+        for(int i = 0; i < results.size(); i++){
+            int index = i % inputSources.length;
+            Assert.assertArrayEquals(inputSources[index].getAlias(),
+                    expected.get(index), results.get(i));
+        }
+        archiveFile.close();
+    }
+    @Test
+    public void testParallelExtractAll() throws IOException {
+        File file = new File(TestUtils.getTempDir(), "parallel_extract.apk");
+        getApkModule().writeApk(file);
+        ArchiveFile archiveFile = new ArchiveFile(file);
+        File serialDir = new File(TestUtils.getTempDir(), "extract_serial");
+        File parallelDir = new File(TestUtils.getTempDir(), "extract_parallel");
+        int serialCount = archiveFile.extractAll(serialDir);
+        int parallelCount = archiveFile.extractAll(parallelDir, 4);
+        Assert.assertEquals(serialCount, parallelCount);
+        List<String> progressNames = new ArrayList<>();
+        WorkerPool workerPool = new WorkerPool(4);
+        int progressCount = archiveFile.extractAll(new File(TestUtils.getTempDir(), "extract_progress"),
+                null, null, (path, size, extractedBytes) -> {
+                    synchronized (progressNames){
+                        progressNames.add(path);
+                    }
+                }, workerPool);
+        workerPool.close();
+        Assert.assertEquals(serialCount, progressCount);
+        Assert.assertEquals(serialCount, progressNames.size());
+        Iterator<ArchiveEntry> iterator = archiveFile.getFiles();
+        while (iterator.hasNext()){
+            String name = iterator.next().getName();
+            Assert.assertArrayEquals(name,
+                    IOUtil.readFully(new File(serialDir, name)),
+                    IOUtil.readFully(new File(parallelDir, name)));
+        }
+        archiveFile.close();
+    }
 
     private ApkModule getApkModule() throws IOException {
         ApkModuleTest apkModuleTest = new ApkModuleTest();
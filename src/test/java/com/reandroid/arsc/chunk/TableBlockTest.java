@@ -0,0 +1,159 @@
+package com.reandroid.arsc.chunk;
+
+import com.reandroid.apk.AndroidFrameworks;
+import com.reandroid.archive.ArchiveBytes;
+import com.reandroid.arsc.io.BlockReader;
+import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.utils.concurrent.WorkerPool;
+import com.reandroid.utils.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TableBlockTest {
+
+    @Test
+    public void testReadByteBuffer() throws IOException {
+        byte[] tableBytes = loadTableBytes();
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(tableBytes.length);
+        direct.put(tableBytes);
+        direct.flip();
+        TableBlock tableBlock = new TableBlock();
+        tableBlock.readBytes(direct);
+        TableBlock expected = new TableBlock();
+        expected.readBytes(new ByteArrayInputStream(tableBytes));
+        Assert.assertArrayEquals(expected.getBytes(), tableBlock.getBytes());
+    }
+
+    static byte[] loadTableBytes() throws IOException {
+        InputStream inputStream = TableBlockTest.class
+                .getResourceAsStream("/type_id_offset.apk");
+        ArchiveBytes archiveBytes = new ArchiveBytes(inputStream);
+        return IOUtil.readFully(archiveBytes
+                .getEntrySource(TableBlock.FILE_NAME).openStream());
+    }
+    @Test
+    public void testResourceIdIndex() {
+        TableBlock framework = AndroidFrameworks.getLatest().getTableBlock();
+        ResourceEntry expected = framework.getResources().next();
+        int resourceId = expected.getResourceId();
+        ResourceEntry resourceEntry = framework.getResource(resourceId);
+        Assert.assertNotNull(resourceEntry);
+        Assert.assertEquals(resourceId, resourceEntry.getResourceId());
+        Assert.assertSame(resourceEntry, framework.getResource(resourceId));
+        Assert.assertNull(framework.getResource(resourceId | 0xfff0));
+
+        TableBlock tableBlock = new TableBlock();
+        tableBlock.newPackage(0x7f, "com.example.index");
+        Assert.assertNull(tableBlock.getResource(resourceId));
+        tableBlock.addFramework(framework);
+        ResourceEntry fromFramework = tableBlock.getResource(resourceId);
+        Assert.assertNotNull(fromFramework);
+        Assert.assertSame(framework.getPackageBlockById(resourceId >>> 24), fromFramework.getPackageBlock());
+        Assert.assertSame(fromFramework, tableBlock.getResource(resourceId));
+        tableBlock.removeFramework(framework);
+        Assert.assertNull(tableBlock.getResource(resourceId));
+    }
+    @Test
+    public void testParallelRefreshFull() throws IOException {
+        byte[] bytes = AndroidFrameworks.getLatest().getTableBlock().getBytes();
+        TableBlock serial = new TableBlock();
+        serial.readBytes(new BlockReader(bytes));
+        TableBlock parallel = new TableBlock();
+        parallel.readBytes(new BlockReader(bytes));
+        int packageCount = serial.size();
+        for(TableBlock tableBlock : new TableBlock[]{serial, parallel}){
+            PackageBlock packageBlock = tableBlock.pickOne(0x01);
+            packageBlock.getOrCreate("", "string", "parallel_refresh").setValueAsString("parallel");
+            packageBlock.getOrCreate("fr", "string", "parallel_refresh").setValueAsString("parallel fr");
+            PackageBlock second = tableBlock.newPackage(0x7f, "com.example.second");
+            for(int i = 0; i < 20; i++){
+                second.getOrCreate("", "string", "second_" + i).setValueAsString("second " + i);
+                second.getOrCreate("de", "string", "second_" + i).setValueAsString("zweite " + i);
+                second.getOrCreate("", "dimen", "size_" + i).setValueAsString("size " + i);
+            }
+        }
+        Assert.assertEquals(packageCount + 1, parallel.size());
+        WorkerPool workerPool = new WorkerPool(4);
+        try {
+            Assert.assertEquals(serial.refreshFull(), parallel.refreshFull(workerPool));
+            Assert.assertArrayEquals(serial.getBytes(), parallel.getBytes());
+
+            parallel.pickOne(0x01).getOrCreate("", "string", "parallel_refresh_2").setValueAsString("again");
+            parallel.pickOne(0x01).refresh(workerPool);
+            parallel.refresh(WorkerPool.serial());
+        } finally {
+            workerPool.close();
+        }
+        TableBlock reloaded = new TableBlock();
+        reloaded.readBytes(new BlockReader(parallel.getBytes()));
+        Assert.assertEquals("again", reloaded.pickOne(0x01)
+                .getEntry("", "string", "parallel_refresh_2").getValueAsString());
+        Assert.assertEquals("zweite 3", reloaded.pickOne(0x7f)
+                .getEntry("de", "string", "second_3").getValueAsString());
+    }
+    @Test
+    public void testCancelRefreshAhead() throws IOException {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example.cancel");
+        packageBlock.getOrCreate("", "string", "first").setValueAsString("first");
+        tableBlock.refresh();
+        tableBlock.getTableStringPool().refreshAhead();
+        packageBlock.getSpecStringPool().refreshAhead();
+        // refresh consuming the above failed, next one must lay out changes made since
+        tableBlock.getTableStringPool().cancelRefreshAhead();
+        packageBlock.cancelRefreshAhead();
+        packageBlock.getOrCreate("", "string", "second").setValueAsString("second");
+        tableBlock.refresh();
+        TableBlock reloaded = new TableBlock();
+        reloaded.readBytes(new BlockReader(tableBlock.getBytes()));
+        Assert.assertEquals("second", reloaded.pickOne()
+                .getEntry("", "string", "second").getValueAsString());
+    }
+    @Test
+    public void testParallelRefreshTaskFailure() throws IOException {
+        byte[] bytes = AndroidFrameworks.getLatest().getTableBlock().getBytes();
+        TableBlock serial = new TableBlock();
+        serial.readBytes(new BlockReader(bytes));
+        TableBlock parallel = new TableBlock();
+        parallel.readBytes(new BlockReader(bytes));
+        for(TableBlock tableBlock : new TableBlock[]{serial, parallel}){
+            tableBlock.pickOne(0x01).getOrCreate("", "string", "task_failure")
+                    .setValueAsString("task failure");
+        }
+        serial.refresh();
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicBoolean reached = new AtomicBoolean();
+        // first task runs late, second one is rejected
+        Executor executor = command -> {
+            if(submitted.incrementAndGet() == 2){
+                throw new RejectedExecutionException("injected");
+            }
+            new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ignored) {
+                }
+                reached.set(true);
+                command.run();
+            }).start();
+        };
+        try {
+            parallel.refresh(new WorkerPool(executor));
+            Assert.fail("Expecting exception");
+        } catch (RejectedExecutionException exception) {
+            Assert.assertEquals("injected", exception.getMessage());
+        }
+        Assert.assertTrue(reached.get());
+        Assert.assertArrayEquals(serial.getBytes(), parallel.getBytes());
+    }
+}
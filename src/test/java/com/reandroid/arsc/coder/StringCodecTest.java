@@ -0,0 +1,20 @@
+package com.reandroid.arsc.coder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class StringCodecTest {
+
+    @Test
+    public void testDecodeUtf8(){
+        // surrogate pair written as two three-byte sequences (modified UTF-8)
+        byte[] modifiedUtf8 = new byte[]{(byte) 0xED, (byte) 0xA0, (byte) 0xBD,
+                (byte) 0xED, (byte) 0xB8, (byte) 0x80};
+        Assert.assertEquals("\uD83D\uDE00",
+                StringCodec.decodeUtf8(modifiedUtf8, 0, modifiedUtf8.length));
+        byte[] utf8 = "a\u00E9\uD83D\uDE00".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals("a\u00E9\uD83D\uDE00", StringCodec.decodeUtf8(utf8, 0, utf8.length));
+    }
+}
@@ -0,0 +1,95 @@
+package com.reandroid.arsc.container;
+
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.value.Entry;
+import com.reandroid.utils.concurrent.WorkerPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+public class SpecTypePairTest {
+
+    @Test
+    public void testEntryNameIndex() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example.names");
+        Entry first = packageBlock.getOrCreate("", "string", "first");
+        Entry second = packageBlock.getOrCreate("", "string", "second");
+        Entry secondFr = packageBlock.getOrCreate("fr", "string", "second");
+        first.setValueAsString("first");
+        second.setValueAsString("second");
+        secondFr.setValueAsString("second fr");
+        Assert.assertEquals(second.getResourceId(), secondFr.getResourceId());
+        SpecTypePair specTypePair = first.getTypeBlock().getParentSpecTypePair();
+
+        Assert.assertEquals(first.getId(), specTypePair.resolveEntryId("first"));
+        Assert.assertEquals(second.getResourceId(), packageBlock.resolveResourceId("string", "second"));
+        Assert.assertEquals(second.getResourceId(),
+                tableBlock.resolveResourceId("com.example.names", "string", "second"));
+        Assert.assertSame(secondFr, secondFr.getTypeBlock().getEntry("second"));
+        Assert.assertNull(secondFr.getTypeBlock().getEntry("first"));
+        Assert.assertEquals(-1, specTypePair.resolveEntryId("missing"));
+
+        Entry third = packageBlock.getOrCreate("", "string", "third");
+        Assert.assertEquals(third.getId(), specTypePair.resolveEntryId("third"));
+
+        second.reName("renamed");
+        Assert.assertEquals(-1, specTypePair.resolveEntryId("second"));
+        Assert.assertEquals(second.getId(), specTypePair.resolveEntryId("renamed"));
+        Assert.assertSame(secondFr, secondFr.getTypeBlock().getEntry("renamed"));
+        Assert.assertEquals(second.getResourceId(), specTypePair.getResource("renamed").getResourceId());
+
+        first.setName(null);
+        Assert.assertEquals(-1, specTypePair.resolveEntryId("first"));
+        Assert.assertNull(first.getTypeBlock().getEntry("first"));
+    }
+    @Test
+    public void testNameOfOtherIdInTypeBlock() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example.names");
+        Entry shared = packageBlock.getOrCreate("", "string", "shared");
+        Entry other = packageBlock.getOrCreate("fr", "string", "other");
+        shared.setValueAsString("shared");
+        other.setValueAsString("other");
+        other.setName("shared");
+        Assert.assertNotEquals(shared.getId(), other.getId());
+        SpecTypePair specTypePair = shared.getTypeBlock().getParentSpecTypePair();
+        Assert.assertEquals(shared.getId(), specTypePair.resolveEntryId("shared"));
+        Assert.assertSame(other, other.getTypeBlock().getEntry("shared"));
+    }
+    @Test
+    public void testConcurrentResolve() throws IOException {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example.names");
+        int count = 200;
+        for(int i = 0; i < count; i++){
+            packageBlock.getOrCreate("", "string", "name_" + i).setValueAsString("value_" + i);
+        }
+        SpecTypePair specTypePair = packageBlock.getSpecTypePair("string");
+        WorkerPool workerPool = new WorkerPool(4);
+        try {
+            List<Callable<int[]>> tasks = new ArrayList<>();
+            for(int t = 0; t < 4; t++){
+                tasks.add(() -> {
+                    int[] ids = new int[count];
+                    for(int i = 0; i < count; i++){
+                        ids[i] = specTypePair.resolveEntryId("name_" + i);
+                    }
+                    return ids;
+                });
+            }
+            for(int[] ids : workerPool.invokeAll(tasks)){
+                for(int i = 0; i < count; i++){
+                    Assert.assertEquals(i, ids[i]);
+                }
+            }
+        } finally {
+            workerPool.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.value.Entry;
+import com.reandroid.arsc.value.ResConfig;
+import com.reandroid.arsc.value.ResValueMap;
+import com.reandroid.arsc.value.ValueType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResourceResolverTest {
+
+    @Test
+    public void testResolve() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example.resolver");
+        Entry title = packageBlock.getOrCreate("", "string", "title");
+        title.setValueAsString("default");
+        packageBlock.getOrCreate("fr", "string", "title").setValueAsString("fr");
+        packageBlock.getOrCreate("fr-rCA", "string", "title").setValueAsString("fr-CA");
+        packageBlock.getOrCreate("land", "string", "title").setValueAsString("land");
+        packageBlock.getOrCreate("v30", "string", "title").setValueAsString("v30");
+        Entry icon = packageBlock.getOrCreate("mdpi", "drawable", "icon");
+        icon.setValueAsString("mdpi");
+        packageBlock.getOrCreate("xhdpi", "drawable", "icon").setValueAsString("xhdpi");
+        packageBlock.getOrCreate("xxhdpi", "drawable", "icon").setValueAsString("xxhdpi");
+        Entry alias = packageBlock.getOrCreate("", "string", "alias");
+        alias.setValueAsReference(title.getResourceId());
+        Entry loop = packageBlock.getOrCreate("", "string", "loop");
+        loop.setValueAsReference(loop.getResourceId());
+
+        Entry attr = packageBlock.getOrCreate("", "attr", "label");
+        attr.ensureComplex(true);
+        Entry base = packageBlock.getOrCreate("", "style", "Base");
+        base.ensureComplex(true);
+        ResValueMap valueMap = base.getResValueMapArray().createNext();
+        valueMap.setNameId(attr.getResourceId());
+        valueMap.setTypeAndData(ValueType.REFERENCE, alias.getResourceId());
+        Entry theme = packageBlock.getOrCreate("", "style", "Theme");
+        theme.ensureComplex(true);
+        theme.getResTableMapEntry().setParentId(base.getResourceId());
+
+        String[][] expected = new String[][]{
+                {"fr-rFR-port-xxhdpi-v29", "fr", "xxhdpi"},
+                {"fr-rCA-land-mdpi-v29", "fr-CA", "mdpi"},
+                {"en-land-hdpi-v29", "land", "xhdpi"},
+                {"en-port-v33", "v30", "mdpi"},
+                {"", "default", "mdpi"}
+        };
+        for(String[] row : expected){
+            ResConfig device = ResConfig.parse(row[0]);
+            ResourceResolver resolver = new ResourceResolver(tableBlock, device);
+            Entry entry = resolver.resolve(title.getResourceId());
+            Assert.assertEquals(row[0], row[1], entry.getValueAsString());
+            Assert.assertSame(entry, resolver.resolve(title.getResourceId()));
+            Assert.assertSame(entry, title.getResourceEntry().getBestMatch(device));
+            Assert.assertSame(entry, resolver.resolveValue(alias.getResourceId()));
+            Assert.assertEquals(row[0], row[1], resolver.resolveAttribute(
+                    theme.getResourceId(), attr.getResourceId()).getValueAsString());
+
+            entry = resolver.resolve(icon.getResourceId());
+            Assert.assertEquals(row[0], row[2], entry.getValueAsString());
+            Assert.assertSame(entry, icon.getResourceEntry().getBestMatch(device));
+
+            Assert.assertNull(resolver.resolveValue(loop.getResourceId()));
+            Assert.assertNull(resolver.resolve(0x7f7f0000));
+        }
+    }
+}
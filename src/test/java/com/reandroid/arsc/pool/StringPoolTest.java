@@ -0,0 +1,135 @@
+package com.reandroid.arsc.pool;
+
+import com.reandroid.archive.ArchiveBytes;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.item.IntegerItem;
+import com.reandroid.arsc.item.ReferenceItem;
+import com.reandroid.arsc.item.TableString;
+import com.reandroid.utils.concurrent.WorkerPool;
+import com.reandroid.utils.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+public class StringPoolTest {
+
+    @Test
+    public void testLazyDecode() throws IOException {
+        byte[] tableBytes = loadTableBytes();
+
+        TableBlock expected = new TableBlock();
+        expected.readBytes(new ByteArrayInputStream(tableBytes));
+        TableBlock tableBlock = new TableBlock();
+        TableStringPool stringPool = tableBlock.getTableStringPool();
+        stringPool.setLazyDecode(true);
+        tableBlock.readBytes(new ByteArrayInputStream(tableBytes));
+
+        TableStringPool expectedPool = expected.getTableStringPool();
+        Assert.assertEquals(expectedPool.size(), stringPool.size());
+        for(int i = 0; i < expectedPool.size(); i++){
+            Assert.assertEquals(expectedPool.get(i).get(), stringPool.get(i).get());
+            Assert.assertNotNull(stringPool.getString(expectedPool.get(i).getXml()));
+        }
+        Assert.assertArrayEquals(expected.getBytes(), tableBlock.getBytes());
+    }
+    @Test
+    public void testLookupAfterClearAndRead() throws IOException {
+        byte[] tableBytes = loadTableBytes();
+        TableBlock tableBlock = new TableBlock();
+        TableStringPool stringPool = tableBlock.getTableStringPool();
+        stringPool.setLazyDecode(true);
+        tableBlock.readBytes(new ByteArrayInputStream(tableBytes));
+        String xml = stringPool.get(0).getXml();
+        Assert.assertNotNull(stringPool.getString(xml));
+
+        stringPool.clear();
+        Assert.assertNull(stringPool.getString(xml));
+        tableBlock.readBytes(new ByteArrayInputStream(tableBytes));
+        Assert.assertSame(stringPool.get(0), stringPool.getString(xml));
+    }
+    @Test
+    public void testConcurrentDecode() throws IOException {
+        byte[] tableBytes = loadTableBytes();
+        TableBlock expected = new TableBlock();
+        expected.readBytes(new ByteArrayInputStream(tableBytes));
+
+        List<Callable<TableBlock>> tasks = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            tasks.add(() -> {
+                TableBlock tableBlock = new TableBlock();
+                tableBlock.readBytes(new ByteArrayInputStream(tableBytes));
+                return tableBlock;
+            });
+        }
+        TableStringPool expectedPool = expected.getTableStringPool();
+        WorkerPool workerPool = new WorkerPool(4);
+        for(TableBlock tableBlock : workerPool.invokeAll(tasks)){
+            TableStringPool stringPool = tableBlock.getTableStringPool();
+            for(int i = 0; i < expectedPool.size(); i++){
+                Assert.assertEquals(expectedPool.get(i).get(), stringPool.get(i).get());
+            }
+        }
+        workerPool.close();
+    }
+
+    private static byte[] loadTableBytes() throws IOException {
+        InputStream inputStream = StringPoolTest.class
+                .getResourceAsStream("/type_id_offset.apk");
+        ArchiveBytes archiveBytes = new ArchiveBytes(inputStream);
+        return IOUtil.readFully(archiveBytes
+                .getEntrySource(TableBlock.FILE_NAME).openStream());
+    }
+    @Test
+    public void testCompactStringReferences() {
+        TableStringPool stringPool = new TableStringPool(true);
+        TableString tableString = stringPool.getOrCreate("compact");
+        Assert.assertFalse(tableString.hasReference());
+        Assert.assertTrue(tableString.getReferencedList().isEmpty());
+
+        List<IntegerItem> references = new ArrayList<>();
+        for(int i = 0; i < 20; i++){
+            IntegerItem reference = new IntegerItem();
+            references.add(reference);
+            tableString.addReference(reference);
+            tableString.addReference(reference);
+            Assert.assertEquals(i + 1, tableString.getReferenceCount());
+        }
+        Assert.assertTrue(tableString.hasReference());
+        Collection<ReferenceItem> snapshot = tableString.getReferencedList();
+        Assert.assertEquals(20, snapshot.size());
+        try {
+            snapshot.clear();
+            Assert.fail("Expecting unmodifiable snapshot");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        tableString.onIndexChanged(0, 7);
+        for(IntegerItem reference : references){
+            Assert.assertEquals(7, reference.get());
+        }
+        for(int i = 19; i >= 0; i--){
+            Assert.assertTrue(tableString.removeReference(references.get(i)));
+            Assert.assertFalse(tableString.removeReference(references.get(i)));
+            Assert.assertEquals(i, tableString.getReferenceCount());
+        }
+        Assert.assertFalse(tableString.hasReference());
+        Assert.assertEquals(20, snapshot.size());
+
+        for(int i = 0; i < 3; i++){
+            tableString.addReference(references.get(i));
+        }
+        Assert.assertTrue(tableString.removeReference(references.get(0)));
+        List<ReferenceItem> remaining = new ArrayList<>(tableString.getReferencedList());
+        Assert.assertEquals(2, remaining.size());
+        Assert.assertSame(references.get(1), remaining.get(0));
+        Assert.assertSame(references.get(2), remaining.get(1));
+        tableString.removeAllReference();
+        Assert.assertEquals(0, tableString.getReferenceCount());
+    }
+}
@@ -28,6 +28,31 @@ public class ResConfigTest {
 
         }
     }
+    @Test
+    public void testMatch(){
+        ResConfig device = ResConfig.parse("fr-v29");
+        Assert.assertTrue(ResConfig.parse("").match(device));
+        Assert.assertTrue(ResConfig.parse("v21").match(device));
+        Assert.assertFalse(ResConfig.parse("v30").match(device));
+        Assert.assertFalse(ResConfig.parse("de").match(device));
+        Assert.assertFalse(ResConfig.parse("land").match(ResConfig.parse("port")));
+    }
+    @Test
+    public void testIsBetterThan(){
+        ResConfig device = ResConfig.parse("fr-rCA-land-xxhdpi-v29");
+        assertBetter("fr-rCA", "fr", device);
+        assertBetter("fr", "land", device);
+        assertBetter("land", "", device);
+        assertBetter("xhdpi", "mdpi", device);
+        assertBetter("v28", "v21", device);
+        Assert.assertTrue(ResConfig.parse("fr").isBetterThan(null, device));
+    }
+    private static void assertBetter(String better, String worse, ResConfig device){
+        Assert.assertTrue(better + " > " + worse, ResConfig.parse(better)
+                .isBetterThan(ResConfig.parse(worse), device));
+        Assert.assertFalse(worse + " > " + better, ResConfig.parse(worse)
+                .isBetterThan(ResConfig.parse(better), device));
+    }
 
     private static final String[] QUALIFIERS = new String[]{
             "",
@@ -0,0 +1,141 @@
+package com.reandroid.dex.data;
+
+import com.reandroid.TestUtils;
+import com.reandroid.dex.base.DexException;
+import com.reandroid.dex.id.StringId;
+import com.reandroid.dex.key.StringKey;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.model.DexClass;
+import com.reandroid.dex.model.DexFile;
+import com.reandroid.dex.model.DexMethod;
+import com.reandroid.dex.sections.Section;
+import com.reandroid.dex.sections.SectionType;
+import com.reandroid.dex.smali.SmaliReader;
+import com.reandroid.utils.io.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class InstructionListTest {
+
+    @Test
+    public void testLazyDecode() throws IOException {
+        File dir = new File(TestUtils.getTempDir(), "lazy_code");
+        for(int i = 0; i < 20; i++){
+            File file = new File(dir, "q/D" + i + ".smali");
+            Assert.assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+            String smali = ".class public Lq/D" + i + ";\n" +
+                    ".super Ljava/lang/Object;\n" +
+                    ".field public static value:I\n" +
+                    ".method public static get(I)Ljava/lang/String;\n" +
+                    "    .locals 2\n" +
+                    "    sget v0, Lq/D" + i + ";->value:I\n" +
+                    "    packed-switch p0, :pswitch_data\n" +
+                    "    sparse-switch v0, :sswitch_data\n" +
+                    "    const/4 v1, 0x2\n" +
+                    "    new-array v1, v1, [I\n" +
+                    "    fill-array-data v1, :array_data\n" +
+                    "    const-string v0, \"s" + i + "\"\n" +
+                    "    invoke-static {v0}, Ljava/lang/String;->valueOf(Ljava/lang/Object;)Ljava/lang/String;\n" +
+                    "    move-result-object v0\n" +
+                    "    return-object v0\n" +
+                    "    :pswitch_data\n" +
+                    "    .packed-switch 0x1\n" +
+                    "        :pswitch_data\n" +
+                    "        :sswitch_data\n" +
+                    "    .end packed-switch\n" +
+                    "    :sswitch_data\n" +
+                    "    .sparse-switch\n" +
+                    "        0x3 -> :pswitch_data\n" +
+                    "    .end sparse-switch\n" +
+                    "    :array_data\n" +
+                    "    .array-data 4\n" +
+                    "        0x1\n" +
+                    "        0x" + Integer.toHexString(i) + "\n" +
+                    "    .end array-data\n" +
+                    ".end method\n";
+            Files.write(file.toPath(), smali.getBytes(StandardCharsets.UTF_8));
+        }
+        DexFile source = DexFile.createDefault();
+        source.parseSmaliDirectory(dir);
+        source.refreshFull();
+        byte[] bytes = source.getBytes();
+        FileUtil.deleteDirectory(dir);
+
+        DexFile expected = DexFile.read(bytes);
+        DexFile dexFile = DexFile.read(bytes, true);
+        // the option is per dex file
+        for(CodeItem codeItem : expected.getDexLayout().getSectionList().getSection(SectionType.CODE)){
+            Assert.assertTrue(codeItem.getInstructionList().isDecoded());
+        }
+        Section<CodeItem> codeSection = dexFile.getDexLayout().getSectionList()
+                .getSection(SectionType.CODE);
+        for(CodeItem codeItem : codeSection){
+            Assert.assertFalse(codeItem.getInstructionList().isDecoded());
+        }
+        Assert.assertArrayEquals(expected.getBytes(), dexFile.getBytes());
+
+        // removing a class shifts string, type, field and method indexes
+        TypeKey removed = TypeKey.create("Lq/D3;");
+        expected.removeClasses(dexClass -> dexClass.getKey().equals(removed));
+        dexFile.removeClasses(dexClass -> dexClass.getKey().equals(removed));
+        expected.clearUnused();
+        dexFile.clearUnused();
+        expected.sortStrings();
+        dexFile.sortStrings();
+        expected.refresh();
+        dexFile.refresh();
+        for(CodeItem codeItem : codeSection){
+            Assert.assertFalse(codeItem.getInstructionList().isDecoded());
+        }
+        Assert.assertArrayEquals(expected.getBytes(), dexFile.getBytes());
+
+        for(DexClass dexClass : expected){
+            DexClass lazyClass = dexFile.getDexClass(dexClass.getKey());
+            Assert.assertEquals(dexClass.toSmali(), lazyClass.toSmali());
+            DexMethod dexMethod = lazyClass.getDeclaredMethods().next();
+            Assert.assertTrue(dexMethod.getDefinition().getCodeItem()
+                    .getInstructionList().isDecoded());
+        }
+        expected.refreshFull();
+        dexFile.refreshFull();
+        Assert.assertArrayEquals(expected.getBytes(), dexFile.getBytes());
+    }
+    @Test
+    public void testLazyReferenceOutOfRange() throws IOException {
+        DexFile source = DexFile.createDefault();
+        source.fromSmali(SmaliReader.of(".class public Lq/Big;\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".method public static get()Ljava/lang/String;\n" +
+                "    .locals 1\n" +
+                "    const-string v0, \"s\"\n" +
+                "    return-object v0\n" +
+                ".end method\n"));
+        source.refreshFull();
+        byte[] bytes = source.getBytes();
+
+        assertStringIndexOutOfRange(DexFile.read(bytes));
+        DexFile dexFile = DexFile.read(bytes, true);
+        assertStringIndexOutOfRange(dexFile);
+    }
+    private static void assertStringIndexOutOfRange(DexFile dexFile){
+        // strings sorted before "s" push its index beyond 0xffff
+        Section<StringId> section = dexFile.getDexLayout().getSectionList()
+                .getSection(SectionType.STRING_ID);
+        for(int i = 0; i < 0x10000; i++){
+            section.getOrCreate(StringKey.create("a" + i));
+        }
+        dexFile.sortStrings();
+        try {
+            dexFile.refresh();
+            Assert.fail("Expecting out of range string index");
+        } catch (DexException exception) {
+            Assert.assertTrue(exception.getMessage(),
+                    exception.getMessage().startsWith("Short value out of range"));
+        }
+    }
+}
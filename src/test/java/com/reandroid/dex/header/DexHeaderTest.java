@@ -0,0 +1,85 @@
+package com.reandroid.dex.header;
+
+import com.reandroid.TestUtils;
+import com.reandroid.arsc.base.Block;
+import com.reandroid.dex.SampleDexFileCreator;
+import com.reandroid.dex.model.DexFile;
+import com.reandroid.utils.SHA1;
+import com.reandroid.utils.concurrent.WorkerPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+public class DexHeaderTest {
+
+    @Test
+    public void testStreamingWrite() throws IOException, NoSuchAlgorithmException {
+        DexFile dexFile = SampleDexFileCreator.createApplicationClass(
+                "com.example.App", "com.example.MainActivity", 0x7f010000);
+        dexFile.refresh();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        dexFile.write(outputStream);
+        byte[] bytes = outputStream.toByteArray();
+        Assert.assertArrayEquals(dexFile.getBytes(), bytes);
+        Assert.assertEquals(bytes.length, dexFile.getDexLayout().getHeader().fileSize.get());
+
+        Adler32 adler32 = new Adler32();
+        adler32.update(bytes, 12, bytes.length - 12);
+        Assert.assertEquals((int) adler32.getValue(), Block.getInteger(bytes, 8));
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update(bytes, 32, bytes.length - 32);
+        byte[] signature = new byte[20];
+        System.arraycopy(bytes, 12, signature, 0, 20);
+        Assert.assertArrayEquals(digest.digest(), signature);
+    }
+    @Test
+    public void testSha1Fallback() {
+        byte[] random = new byte[100000];
+        new Random(7).nextBytes(random);
+        SHA1 platform = new SHA1();
+        SHA1 fallback = new SHA1(false);
+        Assert.assertFalse(fallback.isPlatform());
+        platform.update(random, 0, random.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(random.length);
+        direct.put(random);
+        direct.flip();
+        fallback.update(direct);
+        Assert.assertArrayEquals(platform.digest(), fallback.digest());
+    }
+    @Test
+    public void testVerify() throws IOException {
+        DexFile dexFile = SampleDexFileCreator.createApplicationClass(
+                "com.example.VerifyApp", "com.example.VerifyActivity", 0x7f010000);
+        dexFile.refresh();
+        byte[] bytes = dexFile.getBytes();
+        File file = new File(TestUtils.getTempDir(), "verify.dex");
+        Files.write(file.toPath(), bytes);
+        Assert.assertTrue(DexHeader.verify(file));
+        Assert.assertTrue(DexHeader.verify(file, new WorkerPool(2)));
+
+        byte[] badChecksum = bytes.clone();
+        badChecksum[8] ^= 1;
+        Assert.assertFalse(Checksum.verify(ByteBuffer.wrap(badChecksum)));
+        Assert.assertTrue(Signature.verify(ByteBuffer.wrap(badChecksum)));
+
+        byte[] badContent = bytes.clone();
+        badContent[bytes.length - 1] ^= 1;
+        Assert.assertFalse(Checksum.verify(ByteBuffer.wrap(badContent)));
+        Assert.assertFalse(Signature.verify(ByteBuffer.wrap(badContent)));
+        Files.write(file.toPath(), badContent);
+        Assert.assertFalse(DexHeader.verify(file, new WorkerPool(2)));
+
+        Assert.assertFalse(DexHeader.verify(ByteBuffer.wrap(bytes, 0, 100)));
+        file.delete();
+    }
+}
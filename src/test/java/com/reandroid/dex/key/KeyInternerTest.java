@@ -0,0 +1,86 @@
+package com.reandroid.dex.key;
+
+import com.reandroid.dex.SampleDexFileCreator;
+import com.reandroid.dex.model.DexClass;
+import com.reandroid.dex.model.DexFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+public class KeyInternerTest {
+
+    @Test
+    public void testIntern() throws IOException {
+        DexFile source = SampleDexFileCreator.createApplicationClass(
+                "com.example.InternApp", "com.example.InternActivity", 0x7f010000);
+        byte[] bytes = source.getBytes();
+        DexFile expected = DexFile.read(bytes);
+        expected.refresh();
+        Assert.assertFalse(KeyInterner.isEnabled());
+        Assert.assertNotSame(TypeKey.create("La/B;"), TypeKey.create("La/B;"));
+        KeyInterner.setEnabled(true);
+        try {
+            Assert.assertSame(TypeKey.create("La/B;"), TypeKey.create("La/B;"));
+            MethodKey methodKey = MethodKey.parse("La/B;->get(ILjava/lang/String;)V");
+            Assert.assertSame(methodKey, MethodKey.parse("La/B;->get(ILjava/lang/String;)V"));
+            FieldKey fieldKey = FieldKey.parse("La/B;->value:I");
+            Assert.assertSame(fieldKey, FieldKey.parse("La/B;->value:I"));
+            Assert.assertTrue(KeyInterner.size() > 0);
+
+            DexFile dexFile = DexFile.read(bytes);
+            Iterator<DexClass> iterator = dexFile.getDexClasses(null);
+            Assert.assertTrue(iterator.hasNext());
+            while (iterator.hasNext()){
+                TypeKey typeKey = iterator.next().getKey();
+                Assert.assertSame(typeKey, TypeKey.create(typeKey.getTypeName()));
+            }
+            dexFile.refresh();
+            Assert.assertArrayEquals(expected.getBytes(), dexFile.getBytes());
+        }finally {
+            KeyInterner.setEnabled(false);
+        }
+        Assert.assertEquals(0, KeyInterner.size());
+    }
+    @Test
+    public void testWildcardNotInterned() {
+        KeyInterner.setEnabled(true);
+        try {
+            FieldKey any = FieldKey.parse("La/B;->f:*");
+            FieldKey fieldKey = FieldKey.parse("La/B;->f:I");
+            Assert.assertNotSame(any, fieldKey);
+            Assert.assertEquals("I", fieldKey.getTypeName());
+            Assert.assertNotSame(any, FieldKey.parse("La/B;->f:*"));
+
+            FieldKey longKey = FieldKey.parse("La/B;->f:J");
+            Assert.assertNotSame(fieldKey, longKey);
+            Assert.assertEquals("J", longKey.getTypeName());
+            Assert.assertSame(fieldKey, FieldKey.parse("La/B;->f:I"));
+
+            MethodKey methodKey = MethodKey.parse("La/B;->get(I)V");
+            MethodKey other = MethodKey.parse("La/B;->get(J)V");
+            Assert.assertNotSame(methodKey, other);
+            Assert.assertEquals("J", other.getParameterNames()[0]);
+        }finally {
+            KeyInterner.setEnabled(false);
+        }
+    }
+    @Test
+    public void testManyKeys() {
+        KeyInterner.setEnabled(true);
+        try {
+            TypeKey[] keys = new TypeKey[5000];
+            for(int i = 0; i < keys.length; i++){
+                keys[i] = TypeKey.create("La/Many" + i + ";");
+            }
+            Assert.assertTrue(KeyInterner.size() >= keys.length);
+            for(int i = 0; i < keys.length; i++){
+                Assert.assertSame(keys[i], TypeKey.create("La/Many" + i + ";"));
+            }
+        }finally {
+            KeyInterner.setEnabled(false);
+        }
+        Assert.assertEquals(0, KeyInterner.size());
+    }
+}
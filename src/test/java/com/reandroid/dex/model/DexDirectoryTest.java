@@ -0,0 +1,132 @@
+package com.reandroid.dex.model;
+
+import com.reandroid.TestUtils;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.smali.SmaliReader;
+import com.reandroid.utils.io.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class DexDirectoryTest {
+
+    @Test
+    public void testParallelOperations() throws IOException {
+        File dir = new File(TestUtils.getTempDir(), "parallel_dex_dir");
+        File input = new File(dir, "input");
+        for(int i = 0; i < 4; i++){
+            File smaliDir = new File(dir, "smali" + i);
+            for(int j = 0; j < 20; j++){
+                File file = new File(smaliDir, "r/E" + i + "_" + j + ".smali");
+                Assert.assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+                String smali = ".class public Lr/E" + i + "_" + j + ";\n" +
+                        ".super Ljava/lang/Object;\n" +
+                        ".method public static get()Ljava/lang/String;\n" +
+                        "    .locals 1\n" +
+                        "    const-string v0, \"e" + j + "\"\n" +
+                        "    return-object v0\n" +
+                        ".end method\n";
+                Files.write(file.toPath(), smali.getBytes(StandardCharsets.UTF_8));
+            }
+            DexFile dexFile = DexFile.createDefault();
+            dexFile.parseSmaliDirectory(smaliDir);
+            dexFile.refreshFull();
+            String name = i == 0 ? "classes.dex" : "classes" + (i + 1) + ".dex";
+            dexFile.write(new File(input, name));
+        }
+        DexDirectory serial = DexDirectory.fromDexFilesDirectory(input);
+        DexDirectory parallel = DexDirectory.fromDexFilesDirectory(input);
+        parallel.setThreadCount(4);
+        Assert.assertEquals(4, parallel.size());
+        for(DexDirectory directory : new DexDirectory[]{serial, parallel}){
+            directory.shrink();
+            directory.clearUnused();
+            directory.clearDuplicateData();
+            directory.sortStrings();
+            directory.refreshFull();
+        }
+        File serialDir = new File(dir, "serial");
+        File parallelDir = new File(dir, "parallel");
+        serial.save(serialDir);
+        parallel.save(parallelDir);
+        for(int i = 0; i < 4; i++){
+            String name = i == 0 ? "classes.dex" : "classes" + (i + 1) + ".dex";
+            Assert.assertArrayEquals(name,
+                    Files.readAllBytes(new File(serialDir, name).toPath()),
+                    Files.readAllBytes(new File(parallelDir, name).toPath()));
+        }
+        serial.close();
+        parallel.close();
+        FileUtil.deleteDirectory(dir);
+    }
+    @Test
+    public void testClassIndex() throws IOException {
+        DexDirectory directory = new DexDirectory();
+        DexFile first = directory.createDefault();
+        DexFile second = directory.createDefault();
+        first.fromSmali(SmaliReader.of(smaliClass("Lh/Base;", "Ljava/lang/Object;", null)));
+        first.fromSmali(SmaliReader.of(".class public abstract interface Lh/Iface;\n" +
+                ".super Ljava/lang/Object;\n"));
+        second.fromSmali(SmaliReader.of(smaliClass("Lh/Child;", "Lh/Base;", "Lh/Iface;")));
+        second.fromSmali(SmaliReader.of(smaliClass("Lh/GrandChild;", "Lh/Child;", null)));
+
+        TypeKey base = TypeKey.create("Lh/Base;");
+        TypeKey iface = TypeKey.create("Lh/Iface;");
+        Assert.assertSame(second, directory.getDexClass(TypeKey.create("Lh/Child;")).getDexFile());
+        Assert.assertNull(directory.getDexClass(TypeKey.create("Lh/Missing;")));
+        Assert.assertEquals("[Lh/Child;, Lh/GrandChild;]", classNames(directory.getSubTypes(base)));
+        Assert.assertEquals("[Lh/Child;]", classNames(directory.searchExtending(base)));
+        Assert.assertEquals("[Lh/Child;]", classNames(directory.searchImplementations(iface)));
+
+        Assert.assertTrue(directory.removeClasses(dexClass ->
+                dexClass.getKey().getTypeName().equals("Lh/GrandChild;")));
+        Assert.assertNull(directory.getDexClass(TypeKey.create("Lh/GrandChild;")));
+        Assert.assertEquals("[Lh/Child;]", classNames(directory.getSubTypes(base)));
+
+        DexFile external = DexFile.createDefault();
+        DexClass other = external.fromSmali(SmaliReader.of(smaliClass("Lh/Other;", "Lh/Base;", "Lh/Iface;")));
+        Assert.assertTrue(directory.merge(other));
+        Assert.assertNotNull(directory.getDexClass(TypeKey.create("Lh/Other;")));
+        Assert.assertEquals("[Lh/Child;, Lh/Other;]", classNames(directory.searchImplementations(iface)));
+
+        Assert.assertTrue(directory.rename(TypeKey.create("Lh/Child;"), TypeKey.create("Lh/Renamed;")) > 0);
+        Assert.assertNull(directory.getDexClass(TypeKey.create("Lh/Child;")));
+        Assert.assertSame(second, directory.getDexClass(TypeKey.create("Lh/Renamed;")).getDexFile());
+        Assert.assertEquals("[Lh/Other;, Lh/Renamed;]", classNames(directory.getSubTypes(base)));
+
+        // added directly to dex file
+        DexClass direct = first.fromSmali(SmaliReader.of(smaliClass("Lh/Direct;", "Lh/Base;", null)));
+        Assert.assertSame(first, directory.getDexClass(TypeKey.create("Lh/Direct;")).getDexFile());
+        Assert.assertEquals("[Lh/Direct;, Lh/Other;, Lh/Renamed;]", classNames(directory.searchExtending(base)));
+
+        direct.setSuperClass(TypeKey.create("Lh/Other;"));
+        Assert.assertEquals("[Lh/Other;, Lh/Renamed;]", classNames(directory.searchExtending(base)));
+        direct.removeSelf();
+        Assert.assertNull(directory.getDexClass(TypeKey.create("Lh/Direct;")));
+        Assert.assertEquals("[Lh/Other;, Lh/Renamed;]", classNames(directory.getSubTypes(base)));
+        directory.close();
+    }
+    private static String smaliClass(String type, String superClass, String implement){
+        String smali = ".class public " + type + "\n" +
+                ".super " + superClass + "\n";
+        if(implement != null){
+            smali = smali + ".implements " + implement + "\n";
+        }
+        return smali;
+    }
+    private static String classNames(Iterator<DexClass> iterator){
+        List<String> names = new ArrayList<>();
+        while (iterator.hasNext()){
+            names.add(iterator.next().getKey().getTypeName());
+        }
+        names.sort(null);
+        return names.toString();
+    }
+}
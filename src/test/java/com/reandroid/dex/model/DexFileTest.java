@@ -0,0 +1,124 @@
+package com.reandroid.dex.model;
+
+import com.reandroid.TestUtils;
+import com.reandroid.dex.SampleDexFileCreator;
+import com.reandroid.dex.sections.SectionType;
+import com.reandroid.dex.smali.SmaliWriter;
+import com.reandroid.utils.io.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class DexFileTest {
+
+    @Test
+    public void testReadByteBuffer() throws IOException {
+        byte[] dexBytes = SampleDexFileCreator.createApplicationClass(
+                "com.example.App", "com.example.Main", 0x7f010000).getBytes();
+        DexFile dexFile = DexFile.read(ByteBuffer.wrap(dexBytes));
+        Assert.assertArrayEquals(DexFile.read(dexBytes).getBytes(), dexFile.getBytes());
+    }
+    @Test
+    public void testParallelSmaliParse() throws IOException {
+        File dir = writeSmaliFiles("parallel_smali_parse", 300);
+        DexFile expected = DexFile.createDefault();
+        expected.parseSmaliDirectory(dir);
+        expected.refreshFull();
+        DexFile dexFile = DexFile.createDefault();
+        dexFile.parseSmaliDirectory(dir, 4);
+        dexFile.refreshFull();
+        Assert.assertEquals(300, dexFile.getDexLayout().getSectionList()
+                .getSection(SectionType.CLASS_ID).getCount());
+        Assert.assertArrayEquals(expected.getBytes(), dexFile.getBytes());
+        FileUtil.deleteDirectory(dir);
+    }
+    @Test
+    public void testParallelSmaliWrite() throws IOException {
+        File dir = writeSmaliFiles("parallel_smali_write", 300);
+        DexFile dexFile = DexFile.createDefault();
+        dexFile.parseSmaliDirectory(dir);
+        dexFile.refreshFull();
+        FileUtil.deleteDirectory(dir);
+
+        File serialDir = new File(dir, "serial");
+        File parallelDir = new File(dir, "parallel");
+        dexFile.writeSmali(new SmaliWriter(), serialDir);
+        dexFile.writeSmali(new SmaliWriter(), parallelDir, 4);
+        for(DexClass dexClass : dexFile){
+            String path = dexClass.buildSmaliPath();
+            Assert.assertArrayEquals(path,
+                    Files.readAllBytes(new File(new File(serialDir, "classes"), path).toPath()),
+                    Files.readAllBytes(new File(new File(parallelDir, "classes"), path).toPath()));
+        }
+        FileUtil.deleteDirectory(dir);
+    }
+    @Test
+    public void testShrinkUnreachable() throws IOException {
+        File dir = new File(TestUtils.getTempDir(), "shrink_smali");
+        for(int i = 0; i < 30; i++){
+            File file = new File(dir, "s/F" + i + ".smali");
+            Assert.assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+            String smali = ".class public Ls/F" + i + ";\n" +
+                    ".super Ljava/lang/Object;\n" +
+                    ".field public static value:Ls/F" + ((i + 1) % 30) + ";\n" +
+                    ".method public static get()Ljava/lang/String;\n" +
+                    "    .locals 1\n" +
+                    "    .line " + (i + 1) + "\n" +
+                    "    sget-object v0, Ls/F" + ((i + 1) % 30) + ";->value:Ls/F" + ((i + 2) % 30) + ";\n" +
+                    "    const-string v0, \"f" + i + "\"\n" +
+                    "    return-object v0\n" +
+                    ".end method\n";
+            Files.write(file.toPath(), smali.getBytes(StandardCharsets.UTF_8));
+        }
+        DexFile source = DexFile.createDefault();
+        source.parseSmaliDirectory(dir);
+        source.refreshFull();
+        byte[] bytes = source.getBytes();
+        FileUtil.deleteDirectory(dir);
+
+        DexFile expected = DexFile.read(bytes);
+        DexFile dexFile = DexFile.read(bytes);
+        for(DexFile file : new DexFile[]{expected, dexFile}){
+            file.removeClasses(dexClass -> dexClass.getKey().getTypeName().compareTo("Ls/F2") > 0);
+        }
+        // previous behaviour, repeat until nothing is removed
+        int expectedCount = 0;
+        int count;
+        while ((count = expected.clearUnused()) != 0){
+            expectedCount += count;
+        }
+        while ((count = expected.clearDuplicateData()) != 0){
+            expectedCount += count;
+            expectedCount += expected.clearUnused();
+        }
+        expectedCount += expected.clearEmptySections();
+        Assert.assertTrue(expectedCount > 0);
+        Assert.assertEquals(expectedCount, dexFile.shrink());
+        expected.refresh();
+        dexFile.refresh();
+        Assert.assertArrayEquals(expected.getBytes(), dexFile.getBytes());
+    }
+
+    private static File writeSmaliFiles(String name, int count) throws IOException {
+        File dir = new File(TestUtils.getTempDir(), name);
+        for(int i = 0; i < count; i++){
+            File file = new File(dir, "p/C" + i + ".smali");
+            Assert.assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+            String smali = ".class public Lp/C" + i + ";\n" +
+                    ".super Ljava/lang/Object;\n" +
+                    ".field public static value:I = 0x" + Integer.toHexString(i) + "\n" +
+                    ".method public static get()Ljava/lang/String;\n" +
+                    "    .locals 1\n" +
+                    "    const-string v0, \"s" + i + "\"\n" +
+                    "    return-object v0\n" +
+                    ".end method\n";
+            Files.write(file.toPath(), smali.getBytes(StandardCharsets.UTF_8));
+        }
+        return dir;
+    }
+}
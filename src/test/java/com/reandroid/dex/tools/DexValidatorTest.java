@@ -0,0 +1,48 @@
+package com.reandroid.dex.tools;
+
+import com.reandroid.dex.key.FieldKey;
+import com.reandroid.dex.key.MethodKey;
+import com.reandroid.dex.model.DexFile;
+import com.reandroid.dex.smali.SmaliReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DexValidatorTest {
+
+    @Test
+    public void testParallelFind() throws IOException {
+        DexFile dexFile = DexFile.createDefault();
+        for(int i = 0; i < 40; i++){
+            String smali = ".class public Lv/V" + i + ";\n" +
+                    ".super Ljava/lang/Object;\n" +
+                    ".field public static value:I\n" +
+                    ".method public static get()I\n" +
+                    "    .locals 1\n" +
+                    "    sget v0, Lv/V" + ((i + 1) % 40) + ";->" + (i % 3 == 0 ? "missing" : "value") + ":I\n" +
+                    "    invoke-static {}, Lv/V" + ((i + 2) % 40) + ";->" + (i % 4 == 0 ? "absent" : "get") + "()I\n" +
+                    "    return v0\n" +
+                    ".end method\n";
+            dexFile.fromSmali(SmaliReader.of(smali));
+        }
+        DexValidator serial = new DexValidator(dexFile);
+        Set<FieldKey> fields = serial.findMissingOrInaccessibleFields();
+        Set<MethodKey> methods = serial.findMissingOrInaccessibleMethods();
+        Assert.assertEquals(14, fields.size());
+        Assert.assertEquals(10, methods.size());
+
+        DexValidator parallel = new DexValidator(dexFile);
+        parallel.setThreadCount(4);
+        Assert.assertEquals(fields, parallel.findMissingOrInaccessibleFields());
+        Assert.assertEquals(methods, parallel.findMissingOrInaccessibleMethods());
+        List<MethodKey> streamed = new ArrayList<>();
+        parallel.findMissingOrInaccessibleMethods(streamed::add);
+        Assert.assertEquals(methods.size(), streamed.size());
+        Assert.assertEquals(methods, new HashSet<>(streamed));
+    }
+}
@@ -0,0 +1,98 @@
+package com.reandroid.utils.concurrent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WorkerPoolTest {
+
+    @Test
+    public void testThreadsReusedAcrossBatches() throws IOException {
+        WorkerPool workerPool = new WorkerPool(2);
+        Set<Thread> threads = new HashSet<>();
+        for(int batch = 0; batch < 5; batch++){
+            List<Callable<Thread>> tasks = new ArrayList<>();
+            for(int i = 0; i < 4; i++){
+                tasks.add(Thread::currentThread);
+            }
+            threads.addAll(workerPool.invokeAll(tasks));
+        }
+        Assert.assertTrue(threads.size() <= 2);
+        for(Thread thread : threads){
+            Assert.assertTrue(thread.isDaemon());
+        }
+        workerPool.close();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for(int i = 0; i < 4; i++){
+            final int value = i;
+            tasks.add(() -> value);
+        }
+        Assert.assertEquals(4, workerPool.invokeAll(tasks).size());
+        workerPool.close();
+    }
+    @Test
+    public void testFailureWaitsForRunningTasks() {
+        WorkerPool workerPool = new WorkerPool(4);
+        AtomicInteger finished = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            Thread.sleep(50);
+            throw new IllegalStateException("first");
+        });
+        for(int i = 0; i < 3; i++){
+            tasks.add(() -> {
+                Thread.sleep(300);
+                finished.incrementAndGet();
+                throw new IllegalStateException("sibling");
+            });
+        }
+        try {
+            workerPool.invokeAll(tasks);
+            Assert.fail("Expecting exception");
+        } catch (IllegalStateException | IOException exception) {
+            Assert.assertEquals("first", exception.getMessage());
+            Assert.assertEquals(3, finished.get());
+            Assert.assertEquals(3, exception.getSuppressed().length);
+        } finally {
+            workerPool.close();
+        }
+    }
+    @Test
+    public void testFailureSkipsPendingTasks() {
+        WorkerPool workerPool = new WorkerPool(2);
+        AtomicInteger started = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            started.incrementAndGet();
+            throw new IllegalStateException("first");
+        });
+        for(int i = 0; i < 20; i++){
+            tasks.add(() -> {
+                started.incrementAndGet();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException exception) {
+                    throw new IllegalStateException(exception);
+                }
+            });
+        }
+        try {
+            workerPool.runAll(tasks);
+            Assert.fail("Expecting exception");
+        } catch (IllegalStateException exception) {
+            Assert.assertEquals("first", exception.getMessage());
+            int count = started.get();
+            Assert.assertTrue(String.valueOf(count), count < tasks.size());
+            Assert.assertEquals(0, exception.getSuppressed().length);
+        } finally {
+            workerPool.close();
+        }
+    }
+}